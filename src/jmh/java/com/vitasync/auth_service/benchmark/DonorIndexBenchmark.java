@@ -0,0 +1,105 @@
+package com.vitasync.auth_service.benchmark;
+
+import com.vitasync.auth_service.model.BloodType;
+import com.vitasync.auth_service.model.DonorLocation;
+import com.vitasync.auth_service.service.DonorIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Radius and k-nearest donor search over a million synthetic donors.
+ * The scan baselines evaluate the same acos() Haversine expression as
+ * UserRepository.findCompatibleDonorsWithinRadius on every row, in process, which
+ * is a lower bound for the database query (no I/O or row decoding).
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=DonorIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DonorIndexBenchmark {
+
+    private static final BloodType[] BLOOD_TYPES = BloodType.values();
+    private static final int COMPATIBLE_WITH_A_POS = BloodType.A_POS.donorMask(BloodType.Component.RED_CELLS);
+
+    @Param({"1000000"})
+    private int donors;
+
+    @Param({"25"})
+    private double radiusKm;
+
+    private DonorIndex index;
+    private double[] lat;
+    private double[] lng;
+    private BloodType[] bloodType;
+    private long[] ids;
+
+    // Query point in a dense region (Lagos)
+    private final double queryLat = 6.5244;
+    private final double queryLng = 3.3792;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        lat = new double[donors];
+        lng = new double[donors];
+        bloodType = new BloodType[donors];
+        ids = new long[donors];
+        List<DonorLocation> locations = new ArrayList<>(donors);
+        for (int i = 0; i < donors; i++) {
+            // Half clustered around a few cities, half spread over the populated latitudes
+            boolean clustered = i % 2 == 0;
+            lat[i] = clustered ? queryLat + random.nextGaussian() * 2 : random.nextDouble() * 120 - 55;
+            lng[i] = clustered ? queryLng + random.nextGaussian() * 2 : random.nextDouble() * 360 - 180;
+            bloodType[i] = BLOOD_TYPES[random.nextInt(BLOOD_TYPES.length)];
+            ids[i] = i + 1;
+            locations.add(new DonorLocation(ids[i], bloodType[i].code(), lat[i], lng[i]));
+        }
+        index = new DonorIndex(null, 0.25, 500);
+        index.replaceAll(locations);
+    }
+
+    @Benchmark
+    public List<DonorIndex.Match> indexRadius() {
+        return index.findWithinRadius(queryLat, queryLng, radiusKm, COMPATIBLE_WITH_A_POS);
+    }
+
+    @Benchmark
+    public List<DonorIndex.Match> indexNearest10() {
+        return index.findNearest(queryLat, queryLng, 10, COMPATIBLE_WITH_A_POS);
+    }
+
+    @Benchmark
+    public List<long[]> acosScanRadius() {
+        List<long[]> matches = new ArrayList<>();
+        double[] distances = new double[donors];
+        for (int i = 0; i < donors; i++) {
+            if ((COMPATIBLE_WITH_A_POS & bloodType[i].bit()) == 0) {
+                continue;
+            }
+            double distance = 6371 * Math.acos(
+                    Math.cos(Math.toRadians(queryLat)) * Math.cos(Math.toRadians(lat[i]))
+                            * Math.cos(Math.toRadians(lng[i]) - Math.toRadians(queryLng))
+                            + Math.sin(Math.toRadians(queryLat)) * Math.sin(Math.toRadians(lat[i])));
+            distances[i] = distance;
+            if (distance <= radiusKm) {
+                matches.add(new long[]{ids[i], i});
+            }
+        }
+        // ORDER BY distance, as the compatible-donor query does
+        matches.sort(Comparator.comparingDouble(match -> distances[(int) match[1]]));
+        return matches;
+    }
+}
@@ -0,0 +1,124 @@
+package com.vitasync.auth_service.benchmark;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign/verify cost of the algorithms we can issue access tokens with.
+ * EdDSA is measured through plain JCA over the same signing input because
+ * jjwt 0.11.x cannot produce EdDSA tokens.
+ *
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtSigningBenchmark {
+
+    private static final Map<String, Object> CLAIMS = Map.of(
+            "userId", 42L,
+            "email", "donor@vitasync.com",
+            "role", "DONOR",
+            "firstName", "Test",
+            "lastName", "Donor",
+            "isVerified", true,
+            "bloodType", "O-"
+    );
+
+    private SecretKey hmacKey;
+    private KeyPair ecKeys;
+    private KeyPair edKeys;
+
+    private JwtParser hsParser;
+    private JwtParser esParser;
+
+    private String hsToken;
+    private String esToken;
+    private byte[] signingInput;
+    private byte[] edSignature;
+
+    @Setup
+    public void setup() throws Exception {
+        hmacKey = Keys.hmacShaKeyFor("benchmark-secret-key-for-hs256-signing-only".getBytes(StandardCharsets.UTF_8));
+
+        KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+        ec.initialize(new ECGenParameterSpec("secp256r1"));
+        ecKeys = ec.generateKeyPair();
+        edKeys = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+
+        hsParser = Jwts.parserBuilder().setSigningKey(hmacKey).build();
+        esParser = Jwts.parserBuilder().setSigningKey(ecKeys.getPublic()).build();
+
+        hsToken = signHs256();
+        esToken = signEs256();
+
+        // Same header.payload bytes a JWT signer would cover
+        signingInput = hsToken.substring(0, hsToken.lastIndexOf('.')).getBytes(StandardCharsets.US_ASCII);
+        edSignature = signEdDsa();
+    }
+
+    @Benchmark
+    public String signHs256() {
+        return build().signWith(hmacKey, SignatureAlgorithm.HS256).compact();
+    }
+
+    @Benchmark
+    public String signEs256() {
+        return build().signWith(ecKeys.getPrivate(), SignatureAlgorithm.ES256).compact();
+    }
+
+    @Benchmark
+    public byte[] signEdDsa() throws Exception {
+        Signature signer = Signature.getInstance("Ed25519");
+        signer.initSign(edKeys.getPrivate());
+        signer.update(signingInput);
+        return signer.sign();
+    }
+
+    @Benchmark
+    public Object verifyHs256() {
+        return hsParser.parseClaimsJws(hsToken).getBody();
+    }
+
+    @Benchmark
+    public Object verifyEs256() {
+        return esParser.parseClaimsJws(esToken).getBody();
+    }
+
+    @Benchmark
+    public boolean verifyEdDsa() throws Exception {
+        Signature verifier = Signature.getInstance("Ed25519");
+        verifier.initVerify(edKeys.getPublic());
+        verifier.update(signingInput);
+        return verifier.verify(edSignature);
+    }
+
+    private JwtBuilder build() {
+        Date now = new Date();
+        return Jwts.builder()
+                .setClaims(CLAIMS)
+                .setSubject("donor@vitasync.com")
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + 86_400_000L));
+    }
+}
@@ -0,0 +1,97 @@
+package com.vitasync.auth_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vitasync.auth_service.model.Role;
+import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.model.UserIdentity;
+import com.vitasync.auth_service.model.UserSummary;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the full User entity versus the narrow projections on the validate
+ * and inter-service lookup paths: row hydration and JSON response size.
+ * The row columns are held as plain values so only mapping and serialization are timed.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=UserProjectionBenchmark
+ * Add -prof gc (jmh { profilers = ['gc'] }) for bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserProjectionBenchmark {
+
+    private ObjectMapper objectMapper;
+    private User user;
+    private UserSummary summary;
+
+    /**
+     * Response bytes per operation, reported next to the timings
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ResponseBytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        user = hydrateUser();
+        summary = UserSummary.of(user);
+    }
+
+    @Benchmark
+    public User hydrateEntity() {
+        return hydrateUser();
+    }
+
+    @Benchmark
+    public UserIdentity hydrateIdentity() {
+        return new UserIdentity(42L, "donor@vitasync.com", Role.DONOR, true, true, 3);
+    }
+
+    @Benchmark
+    public byte[] serializeEntity(ResponseBytes counter) throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(user);
+        counter.bytes += json.length;
+        return json;
+    }
+
+    @Benchmark
+    public byte[] serializeSummary(ResponseBytes counter) throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(summary);
+        counter.bytes += json.length;
+        return json;
+    }
+
+    private static User hydrateUser() {
+        User user = new User("donor@vitasync.com", "+1234567890",
+                "$2a$12$abcdefghijklmnopqrstuuJ5m8YyDkG0W0bO1bq8bQeO0pQ3y7xG2", "Test", "Donor", Role.DONOR);
+        user.setId(42L);
+        user.setIsActive(true);
+        user.setIsVerified(true);
+        user.setBloodType("O-");
+        user.setLocationLat(6.5244);
+        user.setLocationLng(3.3792);
+        user.setOrganizationId(7L);
+        user.setSecurityVersion(3);
+        user.setLastLogin(LocalDateTime.now());
+        return user;
+    }
+}
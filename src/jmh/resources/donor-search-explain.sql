@@ -0,0 +1,63 @@
+-- Donor search EXPLAIN comparison on a large seeded dataset.
+-- Run against a scratch database with the application schema loaded:
+--   psql -d vitasync_bench -f src/main/resources/schema.sql -f src/jmh/resources/donor-search-explain.sql
+
+-- 1M synthetic users, ~40% verified active donors clustered around a few cities
+INSERT INTO users (email, phone_number, password_hash, first_name, last_name, role,
+                   is_active, is_verified, blood_type, location_lat, location_lng)
+SELECT 'bench' || g || '@vitasync.test',
+       '+1' || lpad(g::text, 12, '0'),
+       'x', 'Bench', 'Donor' || g,
+       CASE WHEN g % 5 < 3 THEN 'DONOR' ELSE 'PATIENT' END,
+       g % 10 <> 0,
+       g % 4 <> 0,
+       (ARRAY['O-','O+','A-','A+','B-','B+','AB-','AB+'])[1 + g % 8],
+       c.lat + (random() - 0.5) * 4,
+       c.lng + (random() - 0.5) * 4
+FROM generate_series(1, 1000000) AS g
+CROSS JOIN LATERAL (
+    SELECT (ARRAY[6.52, 9.08, -1.29, 5.60, 30.04])[1 + g % 5] AS lat,
+           (ARRAY[3.38, 7.40, 36.82, -0.19, 31.24])[1 + g % 5] AS lng
+) AS c
+ON CONFLICT DO NOTHING;
+
+ANALYZE users;
+
+-- Before: acos() evaluated on every candidate row, twice, no limit
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM users
+WHERE role = 'DONOR'
+AND is_active = true
+AND is_verified = true
+AND blood_type IN ('O-', 'O+', 'A-', 'A+')
+AND location_lat IS NOT NULL
+AND location_lng IS NOT NULL
+AND (6371 * acos(cos(radians(6.5244)) * cos(radians(location_lat)) *
+                 cos(radians(location_lng) - radians(3.3792)) +
+                 sin(radians(6.5244)) * sin(radians(location_lat)))) <= 25
+ORDER BY (6371 * acos(cos(radians(6.5244)) * cos(radians(location_lat)) *
+                      cos(radians(location_lng) - radians(3.3792)) +
+                      sin(radians(6.5244)) * sin(radians(location_lat)))) ASC;
+
+-- After: bounding box served by idx_users_donor_location, distance computed once, first page of 50
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, first_name, last_name, phone_number, blood_type, organization_id, distance_km
+FROM (
+    SELECT id, first_name, last_name, phone_number, blood_type, organization_id,
+           2 * 6371 * asin(sqrt(
+               power(sin(radians(location_lat - 6.5244) / 2), 2) +
+               cos(radians(6.5244)) * cos(radians(location_lat)) *
+               power(sin(radians(location_lng - 3.3792) / 2), 2)
+           )) AS distance_km
+    FROM users
+    WHERE role = 'DONOR'
+    AND is_active = true
+    AND is_verified = true
+    AND blood_type IN ('O-', 'O+', 'A-', 'A+')
+    AND location_lat BETWEEN 6.2996 AND 6.7492
+    AND location_lng BETWEEN 3.1529 AND 3.6055
+) candidates
+WHERE distance_km <= 25
+AND (distance_km, id) > (-1.0, 0)
+ORDER BY distance_km, id
+LIMIT 50;
@@ -23,7 +23,11 @@ public class ApiKeyFilter implements WebFilter {
 
     // endpoints that require API key (inter-service)
     private static final List<String> PROTECTED_PATHS = List.of(
-            "/auth/user/" // e.g., GET /auth/user/{id}
+            "/auth/user/", // e.g., GET /auth/user/{id}
+            "/auth/users/", // e.g., POST /auth/users/lookup
+            "/auth/donors/", // e.g., GET /auth/donors/match
+            "/auth/admin/", // e.g., POST /auth/admin/keys/rotate, GET /auth/admin/users/export
+            "/auth/deactivate/" // e.g., POST /auth/deactivate/{userId}
     );
 
     @Override
@@ -0,0 +1,108 @@
+package com.vitasync.auth_service.config;
+
+import com.vitasync.auth_service.repository.UserRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static com.vitasync.auth_service.config.ReadReplicaRoutingConnectionFactory.readOnly;
+
+/**
+ * Opens pool connections and runs the hot lookups once before the service takes traffic.
+ * Runs on {@link ApplicationStartedEvent}, which precedes the readiness state switching to
+ * ACCEPTING_TRAFFIC, so the readiness probe only reports UP after warmup. Executing the
+ * lookups with bound parameters makes the driver prepare and cache their statements on
+ * the connections they ran on. With read replicas, replica health is checked first so the
+ * projection lookups that replicas serve can be run through {@code readOnly}, enough times
+ * to reach every replica pool. A failed or slow warmup is logged and startup continues.
+ */
+public class ConnectionPoolWarmup {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolWarmup.class);
+
+    // Matches no user; the lookups only need to run, not to find anything
+    private static final String PROBE_EMAIL = "warmup@invalid";
+
+    private final List<ConnectionPool> pools;
+    private final ConnectionFactory connectionFactory;
+    private final UserRepository userRepository;
+
+    @Value("${auth.datasource.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.datasource.warmup.timeout:30s}")
+    private Duration timeout;
+
+    @Value("${spring.r2dbc.pool.initial-size:10}")
+    private int concurrency;
+
+    public ConnectionPoolWarmup(List<ConnectionPool> pools, ConnectionFactory connectionFactory,
+                                UserRepository userRepository) {
+        this.pools = pools;
+        this.connectionFactory = connectionFactory;
+        this.userRepository = userRepository;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Integer opened = Flux.fromIterable(pools)
+                    .flatMap(ConnectionPool::warmup)
+                    .reduce(0, Integer::sum)
+                    .block(timeout);
+            // Run the lookups concurrently so they spread over the pre-opened connections
+            int parallelism = Math.max(1, concurrency);
+            Flux.range(0, parallelism)
+                    .flatMap(i -> hotQueries(), parallelism)
+                    .then()
+                    .block(timeout);
+            if (connectionFactory instanceof ReadReplicaRoutingConnectionFactory routing) {
+                // Replicas only take reads once marked healthy; round-robin then spreads the
+                // marked lookups over every replica pool
+                routing.refreshHealth().block(timeout);
+                Flux.range(0, parallelism * routing.replicaCount())
+                        .flatMap(i -> replicaQueries(), parallelism)
+                        .then()
+                        .block(timeout);
+            }
+            log.info("Connection pools warmed up: {} connections opened in {} ms",
+                    opened, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (RuntimeException e) {
+            log.warn("Connection pool warmup incomplete, continuing startup: {}", e.getMessage());
+        }
+    }
+
+    private Mono<Void> hotQueries() {
+        return Mono.when(
+                userRepository.findByEmail(PROBE_EMAIL),
+                userRepository.findIdentityByEmail(PROBE_EMAIL),
+                userRepository.findById(-1L),
+                userRepository.existsByEmailOrPhoneNumber(PROBE_EMAIL, PROBE_EMAIL)
+        );
+    }
+
+    /**
+     * The projection lookups that callers route to replicas
+     */
+    private Mono<Void> replicaQueries() {
+        return Mono.when(
+                readOnly(userRepository.findIdentityByEmail(PROBE_EMAIL)),
+                readOnly(userRepository.findIdentitiesByEmailIn(Set.of(PROBE_EMAIL))),
+                readOnly(userRepository.findSummariesByIdIn(Set.of(-1L))),
+                readOnly(userRepository.findAllById(Set.of(-1L)))
+        );
+    }
+}
@@ -0,0 +1,183 @@
+package com.vitasync.auth_service.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Builds the password encoder, sizing the work factor of the chosen algorithm
+ * against a target per-hash latency on the hardware we start on.
+ * Hashes are stored with an {id} prefix so bcrypt, pbkdf2 and argon2 hashes can
+ * coexist; unprefixed hashes from before this change are treated as bcrypt.
+ * Every stored hash records its own work factor, so hashes keep verifying when a later
+ * start calibrates differently and upgradeEncoding reports the ones below the current factor.
+ */
+final class PasswordEncoderCalibrator {
+    private static final Logger log = LoggerFactory.getLogger(PasswordEncoderCalibrator.class);
+
+    static final String BCRYPT = "bcrypt";
+    static final String PBKDF2 = "pbkdf2";
+    static final String ARGON2 = "argon2";
+
+    // Lower bounds: calibration never goes below these (or the configured bcrypt strength), however slow the host
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+    private static final int MIN_PBKDF2_ITERATIONS = 310_000;
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+
+    // Argon2id memory cost (KiB) and parallelism; only the iteration count is calibrated
+    private static final int ARGON2_MEMORY_KIB = 19_456;
+    private static final int ARGON2_PARALLELISM = 1;
+
+    private static final String PROBE_PASSWORD = "calibration-probe";
+
+    private PasswordEncoderCalibrator() {
+    }
+
+    /**
+     * Build a delegating encoder that encodes with {@code algorithm} and matches all supported ids.
+     * With calibration off the fixed {@code bcryptStrength} and the lower bounds above are used;
+     * with it on, {@code bcryptStrength} is the floor bcrypt calibrates up from.
+     */
+    static PasswordEncoder build(String algorithm, Duration targetLatency, boolean calibrate, int bcryptStrength) {
+        String encodingId = algorithm.toLowerCase();
+        long targetNanos = targetLatency.toNanos();
+
+        int strength = bcryptStrength;
+        int pbkdf2Iterations = MIN_PBKDF2_ITERATIONS;
+        int argon2Iterations = MIN_ARGON2_ITERATIONS;
+
+        if (calibrate) {
+            switch (encodingId) {
+                case BCRYPT -> strength = calibrateBcrypt(targetNanos, bcryptStrength);
+                case PBKDF2 -> pbkdf2Iterations = calibrateLinear(targetNanos, 50_000, MIN_PBKDF2_ITERATIONS,
+                        PasswordEncoderCalibrator::pbkdf2);
+                case ARGON2 -> argon2Iterations = calibrateLinear(targetNanos, 1, MIN_ARGON2_ITERATIONS,
+                        PasswordEncoderCalibrator::argon2);
+                default -> throw new IllegalStateException("Unsupported password algorithm: " + algorithm);
+            }
+        }
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(PBKDF2, new IteratedPbkdf2PasswordEncoder(pbkdf2Iterations));
+        encoders.put(ARGON2, argon2(argon2Iterations));
+        if (!encoders.containsKey(encodingId)) {
+            throw new IllegalStateException("Unsupported password algorithm: " + algorithm);
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encodingId, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        log.info("Password encoder: {} (bcrypt strength={}, pbkdf2 iterations={}, argon2 iterations={})",
+                encodingId, strength, pbkdf2Iterations, argon2Iterations);
+        return delegating;
+    }
+
+    /**
+     * Each bcrypt cost step doubles the work: time the floor cost once, then extrapolate
+     */
+    private static int calibrateBcrypt(long targetNanos, int floor) {
+        long nanos = time(new BCryptPasswordEncoder(floor));
+        int strength = floor;
+        while (strength < MAX_BCRYPT_STRENGTH && nanos * 2 <= targetNanos) {
+            nanos *= 2;
+            strength++;
+        }
+        return strength;
+    }
+
+    /**
+     * Work grows linearly with the iteration count: time a probe and scale it to the target
+     */
+    private static int calibrateLinear(long targetNanos, int probeIterations, int minIterations,
+                                       IntFunction<PasswordEncoder> encoder) {
+        long nanos = Math.max(1, time(encoder.apply(probeIterations)));
+        long scaled = probeIterations * targetNanos / nanos;
+        return (int) Math.max(minIterations, Math.min(Integer.MAX_VALUE, scaled));
+    }
+
+    private static long time(PasswordEncoder encoder) {
+        encoder.encode(PROBE_PASSWORD); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode(PROBE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    private static PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, ARGON2_PARALLELISM, ARGON2_MEMORY_KIB, iterations);
+    }
+
+    /**
+     * PBKDF2 hashes as {@code iterations$hex}. Pbkdf2PasswordEncoder does not store the
+     * iteration count, so on its own a recalibrated count would stop existing hashes from
+     * matching and upgradeEncoding could never report them. Hashes without the count
+     * are matched at the current count and always reported for upgrade.
+     */
+    private static final class IteratedPbkdf2PasswordEncoder implements PasswordEncoder {
+        private final int iterations;
+        private final PasswordEncoder current;
+
+        IteratedPbkdf2PasswordEncoder(int iterations) {
+            this.iterations = iterations;
+            this.current = pbkdf2(iterations);
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return iterations + "$" + current.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            int separator = encodedPassword.indexOf('$');
+            if (separator < 0) {
+                return current.matches(rawPassword, encodedPassword);
+            }
+            int stored = storedIterations(encodedPassword, separator);
+            if (stored <= 0) {
+                return false;
+            }
+            PasswordEncoder encoder = stored == iterations ? current : pbkdf2(stored);
+            return encoder.matches(rawPassword, encodedPassword.substring(separator + 1));
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            int separator = encodedPassword.indexOf('$');
+            return separator < 0 || storedIterations(encodedPassword, separator) < iterations;
+        }
+
+        private static int storedIterations(String encodedPassword, int separator) {
+            try {
+                return Integer.parseInt(encodedPassword, 0, separator, 10);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
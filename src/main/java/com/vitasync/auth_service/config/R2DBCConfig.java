@@ -1,8 +1,15 @@
 package com.vitasync.auth_service.config;
 
+import com.vitasync.auth_service.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.pool.ConnectionPool;
 import io.r2dbc.pool.ConnectionPoolConfiguration;
@@ -11,7 +18,17 @@ import io.r2dbc.spi.ConnectionFactoryOptions;
 import static io.r2dbc.spi.ConnectionFactoryOptions.*;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Connection pools for the primary and any read replicas.
+ * Pool sizing, lifetimes, timeouts and validation come from the standard
+ * {@code spring.r2dbc.pool.*} properties; every pool publishes occupancy gauges and an
+ * acquire-latency histogram tagged with its name. Pool gauges are bound here rather than by
+ * Boot's pool metrics auto-configuration (excluded in application.properties), which only
+ * sees the primary and would register it a second time under the bean name.
+ */
 @Configuration
 public class R2DBCConfig {
 
@@ -30,12 +47,63 @@ public class R2DBCConfig {
     @Value("${DB_PASSWORD}")
     private String dbPassword;
 
+    // Read replicas as host:port pairs, comma separated; empty keeps all traffic on the primary
+    @Value("${auth.datasource.replicas:}")
+    private List<String> replicaHosts;
+
+    @Value("${auth.datasource.replica-max-lag:1s}")
+    private Duration replicaMaxLag;
+
+    private final R2dbcProperties r2dbcProperties;
+    private final MeterRegistry meterRegistry;
+    private final List<ConnectionPool> pools = new ArrayList<>();
+
+    public R2DBCConfig(R2dbcProperties r2dbcProperties, MeterRegistry meterRegistry) {
+        this.r2dbcProperties = r2dbcProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
     @Bean
     public ConnectionFactory connectionFactory() {
+        ConnectionFactory primary = pool("primary", dbHost, Integer.parseInt(dbPort));
+        if (replicaHosts == null || replicaHosts.isEmpty()) {
+            return primary;
+        }
+
+        List<ConnectionFactory> replicas = new ArrayList<>();
+        for (String replica : replicaHosts) {
+            if (replica.isBlank()) {
+                continue;
+            }
+            String[] hostAndPort = replica.trim().split(":");
+            replicas.add(pool("replica-" + replicas.size(), hostAndPort[0],
+                    hostAndPort.length > 1 ? Integer.parseInt(hostAndPort[1]) : 5432));
+        }
+        return new ReadReplicaRoutingConnectionFactory(primary, replicas, replicaMaxLag);
+    }
+
+    /**
+     * Pre-opens connections and prepares the hot queries before the service reports ready
+     */
+    @Bean
+    public ConnectionPoolWarmup connectionPoolWarmup(ConnectionFactory connectionFactory, UserRepository userRepository) {
+        // Taking the connection factory ensures every pool has been built before warmup sees the list
+        return new ConnectionPoolWarmup(pools, connectionFactory, userRepository);
+    }
+
+    /**
+     * Close every pool; the wrappers around them hide the pools from Boot's own disposal
+     */
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(ConnectionPool::dispose);
+    }
+
+    private ConnectionFactory pool(String name, String host, int port) {
         ConnectionFactoryOptions options = ConnectionFactoryOptions.builder()
             .option(DRIVER, "postgresql")
-            .option(HOST, dbHost)
-            .option(PORT, Integer.parseInt(dbPort))
+            .option(HOST, host)
+            .option(PORT, port)
             .option(DATABASE, dbName)
             .option(USER, dbUsername)
             .option(PASSWORD, dbPassword)
@@ -44,12 +112,23 @@ public class R2DBCConfig {
 
         ConnectionFactory connectionFactory = ConnectionFactories.get(options);
 
-        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration.builder(connectionFactory)
-            .maxIdleTime(Duration.ofMinutes(30))
-            .initialSize(5)
-            .maxSize(10)
-            .build();
+        R2dbcProperties.Pool properties = r2dbcProperties.getPool();
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(connectionFactory)
+            .name(name);
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(properties.getInitialSize()).to(builder::initialSize);
+        map.from(properties.getMaxSize()).to(builder::maxSize);
+        map.from(properties.getMinIdle()).to(builder::minIdle);
+        map.from(properties.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(properties.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(properties.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(properties.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(properties.getValidationDepth()).to(builder::validationDepth);
+        map.from(properties.getValidationQuery()).whenHasText().to(builder::validationQuery);
 
-        return new ConnectionPool(configuration);
+        ConnectionPool pool = new ConnectionPool(builder.build());
+        pools.add(pool);
+        new ConnectionPoolMetrics(pool, name, Tags.empty()).bindTo(meterRegistry);
+        return new AcquireTimingConnectionFactory(pool, name, meterRegistry);
     }
 }
@@ -0,0 +1,163 @@
+package com.vitasync.auth_service.config;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Routes read-only work to replica pools and everything else to the primary.
+ * Callers opt in per query with {@link #readOnly(Mono)} / {@link #readOnly(Flux)}, which
+ * mark the Reactor context; unmarked work, and so every write and read-your-writes path,
+ * stays on the primary. Replica lag is checked on an interval and a replica only takes
+ * reads while its lag is within {@code maxLag}; with no replica in bounds, reads fall
+ * back to the primary. The check reads pg_stat_wal_receiver, so the replica login needs
+ * pg_read_all_stats (or pg_monitor); without it every replica reports unbounded lag and
+ * reads stay on the primary.
+ */
+public class ReadReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingConnectionFactory.class);
+
+    private static final String READ_ONLY = ReadReplicaRoutingConnectionFactory.class.getName() + ".READ_ONLY";
+    private static final String PRIMARY = "primary";
+
+    // Zero on a primary or a fully replayed, streaming standby; seconds since the last replayed
+    // commit while catching up; infinite when the standby is not streaming from its upstream,
+    // since a disconnected standby also has equal receive and replay positions
+    private static final String LAG_QUERY = """
+        SELECT CASE
+            WHEN NOT pg_is_in_recovery() THEN 0::float8
+            WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN 'Infinity'::float8
+            WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0::float8
+            ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())::float8, 'Infinity'::float8)
+        END
+        """;
+
+    private final List<ConnectionFactory> replicas;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final AtomicIntegerArray healthy;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaRoutingConnectionFactory(ConnectionFactory primary, List<ConnectionFactory> replicas,
+                                               Duration maxLag) {
+        this(primary, replicas, maxLag, LAG_QUERY);
+    }
+
+    /**
+     * With a custom lag query returning one float8 of seconds, for databases other than Postgres
+     */
+    ReadReplicaRoutingConnectionFactory(ConnectionFactory primary, List<ConnectionFactory> replicas,
+                                        Duration maxLag, String lagQuery) {
+        this.replicas = List.copyOf(replicas);
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        this.healthy = new AtomicIntegerArray(replicas.size());
+
+        Map<String, ConnectionFactory> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(replicaKey(i), replicas.get(i));
+        }
+        setTargetConnectionFactories(targets);
+        setDefaultTargetConnectionFactory(primary);
+        setLenientFallback(true);
+    }
+
+    /**
+     * Run the query on a replica if one is within the lag bound
+     */
+    public static <T> Mono<T> readOnly(Mono<T> query) {
+        return query.contextWrite(context -> context.put(READ_ONLY, Boolean.TRUE));
+    }
+
+    /**
+     * Run the query on a replica if one is within the lag bound
+     */
+    public static <T> Flux<T> readOnly(Flux<T> query) {
+        return query.contextWrite(context -> context.put(READ_ONLY, Boolean.TRUE));
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> context.getOrDefault(READ_ONLY, Boolean.FALSE)
+                ? Mono.just(pickReplica())
+                : Mono.empty());
+    }
+
+    /**
+     * Round-robin over replicas within the lag bound, or the primary when none is
+     */
+    private Object pickReplica() {
+        int count = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            int candidate = (start + i) % count;
+            if (healthy.get(candidate) == 1) {
+                return replicaKey(candidate);
+            }
+        }
+        return PRIMARY;
+    }
+
+    int replicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Measure every replica's replay lag and update which ones may take reads
+     */
+    @Scheduled(fixedDelayString = "${auth.datasource.replica-check-ms:1000}")
+    public void checkReplicas() {
+        refreshHealth().subscribe();
+    }
+
+    /**
+     * Check every replica once; completes when all of them have been marked
+     */
+    Mono<Void> refreshHealth() {
+        return Flux.range(0, replicas.size())
+                .flatMap(replica -> measureLag(replicas.get(replica))
+                        .defaultIfEmpty(Double.POSITIVE_INFINITY)
+                        .timeout(maxLag.plusSeconds(1))
+                        .doOnNext(lagSeconds -> markHealthy(replica, lagSeconds <= maxLag.toMillis() / 1000.0,
+                                "lag " + lagSeconds + "s"))
+                        .onErrorResume(error -> {
+                            markHealthy(replica, false, error.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private Mono<Double> measureLag(ConnectionFactory replica) {
+        return Mono.usingWhen(
+                replica.create(),
+                connection -> Mono.from(connection.createStatement(lagQuery).execute())
+                        .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Double.class)))),
+                Connection::close);
+    }
+
+    private void markHealthy(int replica, boolean isHealthy, String reason) {
+        int previous = healthy.getAndSet(replica, isHealthy ? 1 : 0);
+        if (previous == 1 && !isHealthy) {
+            log.warn("Replica {} removed from read routing: {}", replica, reason);
+        } else if (previous == 0 && isHealthy) {
+            log.info("Replica {} taking reads ({})", replica, reason);
+        }
+    }
+
+    private static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+}
@@ -1,6 +1,7 @@
 package com.vitasync.auth_service.config;
 
 import com.vitasync.auth_service.service.CustomUserDetailsService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,7 +10,6 @@ import org.springframework.security.authentication.UserDetailsRepositoryReactive
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
@@ -17,6 +17,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -30,6 +31,18 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
 
+    @Value("${auth.password.algorithm:bcrypt}")
+    private String passwordAlgorithm;
+
+    @Value("${auth.password.target-latency:250ms}")
+    private Duration passwordTargetLatency;
+
+    @Value("${auth.password.calibrate:true}")
+    private boolean passwordCalibrate;
+
+    @Value("${auth.password.bcrypt-strength:12}")
+    private int bcryptStrength;
+
     public SecurityConfig(CustomUserDetailsService userDetailsService) {
         this.userDetailsService = userDetailsService;
     }
@@ -46,11 +59,17 @@ public class SecurityConfig {
                         .pathMatchers(HttpMethod.POST, "/auth/register").permitAll()
                         .pathMatchers(HttpMethod.POST, "/auth/login").permitAll()
                         .pathMatchers(HttpMethod.POST, "/auth/refresh").permitAll()
+                        .pathMatchers(HttpMethod.POST, "/auth/logout", "/auth/logout/all").permitAll()
                         .pathMatchers(HttpMethod.GET, "/auth/validate").permitAll()
+                        .pathMatchers(HttpMethod.POST, "/auth/validate/batch").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
                         
                         // Application endpoints - JWT validation handled at controller level
                         .pathMatchers("/auth/profile").permitAll()
                         .pathMatchers("/auth/user/**").permitAll() // Inter-service, protected by API key filter
+                        .pathMatchers(HttpMethod.POST, "/auth/users/lookup").permitAll() // Inter-service, protected by API key filter
+                        .pathMatchers(HttpMethod.GET, "/auth/donors/**").permitAll() // Inter-service, protected by API key filter
+                        .pathMatchers(HttpMethod.POST, "/auth/deactivate/**").permitAll() // Inter-service, protected by API key filter
                         
                         // Health check and info endpoints
                         .pathMatchers(HttpMethod.GET, "/auth/health").permitAll()
@@ -62,8 +81,9 @@ public class SecurityConfig {
                         .pathMatchers("/swagger-ui/**", "/swagger-ui.html", "/swagger-ui/index.html").permitAll()
                         .pathMatchers("/swagger-resources/**", "/webjars/**").permitAll()
                         
-                        // Admin-only endpoints
-                        .pathMatchers("/auth/admin/**").hasRole("ADMIN")
+                        // Admin endpoints: no session or bearer authentication reaches this chain,
+                        // so they are called by operator tooling with the API key instead
+                        .pathMatchers("/auth/admin/**").permitAll() // Protected by API key filter
                         
                         // All other endpoints require authentication
                         .anyExchange().authenticated()
@@ -81,7 +101,8 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+        return PasswordEncoderCalibrator.build(passwordAlgorithm, passwordTargetLatency,
+                passwordCalibrate, bcryptStrength);
     }
 
     @Bean
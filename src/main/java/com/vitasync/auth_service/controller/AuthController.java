@@ -3,16 +3,37 @@ package com.vitasync.auth_service.controller;
 import com.vitasync.auth_service.dto.AuthResponse;
 import com.vitasync.auth_service.dto.LoginRequest;
 import com.vitasync.auth_service.dto.RegisterRequest;
+import com.vitasync.auth_service.model.BloodType;
+import com.vitasync.auth_service.model.DonorMatch;
+import com.vitasync.auth_service.model.Role;
 import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.model.UserSummary;
 import com.vitasync.auth_service.service.AuthService;
+import com.vitasync.auth_service.service.DonorSearchService;
+import com.vitasync.auth_service.service.JwtSigningKeys;
 import com.vitasync.auth_service.service.JwtTokenService;
+import com.vitasync.auth_service.service.LoginThrottle;
+import com.vitasync.auth_service.service.PasswordHashingExecutor;
+import com.vitasync.auth_service.service.UserExportService;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Authentication REST controller for VitaSync platform
@@ -25,10 +46,26 @@ public class AuthController {
 
     private final AuthService authService;
     private final JwtTokenService jwtTokenService;
+    private final JwtSigningKeys signingKeys;
+    private final DonorSearchService donorSearchService;
+    private final UserExportService userExportService;
+    private final LoginThrottle loginThrottle;
 
-    public AuthController(AuthService authService, JwtTokenService jwtTokenService) {
+    @Value("${auth.validate.batch-max-size:100}")
+    private int maxBatchSize;
+
+    @Value("${auth.user-lookup.max-batch-size:500}")
+    private int maxLookupSize;
+
+    public AuthController(AuthService authService, JwtTokenService jwtTokenService, JwtSigningKeys signingKeys,
+                          DonorSearchService donorSearchService, UserExportService userExportService,
+                          LoginThrottle loginThrottle) {
         this.authService = authService;
         this.jwtTokenService = jwtTokenService;
+        this.signingKeys = signingKeys;
+        this.donorSearchService = donorSearchService;
+        this.userExportService = userExportService;
+        this.loginThrottle = loginThrottle;
     }
 
     /**
@@ -47,8 +84,9 @@ public class AuthController {
      * POST /auth/login
      */
     @PostMapping("/login")
-    public Mono<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
-        return authService.login(request)
+    public Mono<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request,
+                                                    ServerHttpRequest httpRequest) {
+        return authService.login(request, clientIp(httpRequest))
                 .map(authResponse -> ResponseEntity.ok(authResponse))
                 .onErrorResume(this::handleError);
     }
@@ -58,8 +96,9 @@ public class AuthController {
      * POST /auth/login-test
      */
     @PostMapping("/login-test")
-    public Mono<ResponseEntity<AuthResponse>> loginTest(@Valid @RequestBody LoginRequest request) {
-        return authService.login(request)
+    public Mono<ResponseEntity<AuthResponse>> loginTest(@Valid @RequestBody LoginRequest request,
+                                                    ServerHttpRequest httpRequest) {
+        return authService.login(request, clientIp(httpRequest))
                 .map(authResponse -> ResponseEntity.ok(authResponse))
                 .onErrorResume(this::handleError);
     }
@@ -76,11 +115,52 @@ public class AuthController {
             return Mono.just(ResponseEntity.badRequest().build());
         }
 
-        return authService.refreshToken(refreshToken)
+        return Mono.fromCallable(() -> jwtTokenService.verify(refreshToken))
+                .flatMap(authService::refreshToken)
                 .map(authResponse -> ResponseEntity.ok(authResponse))
                 .onErrorResume(this::handleError);
     }
 
+    /**
+     * Revoke the current access token (and optionally its refresh token family)
+     * POST /auth/logout
+     */
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Map<String, Object>>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestBody(required = false) Map<String, String> request) {
+
+        String token = jwtTokenService.extractTokenFromHeader(authHeader);
+
+        if (token == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        String refreshToken = request == null ? null : request.get("refreshToken");
+        return authService.logout(token, refreshToken)
+                .thenReturn(ResponseEntity.ok(Map.<String, Object>of("success", true, "message", "Logged out")))
+                .onErrorResume(this::handleError);
+    }
+
+    /**
+     * Revoke every session of the current user
+     * POST /auth/logout/all
+     */
+    @PostMapping("/logout/all")
+    public Mono<ResponseEntity<Map<String, Object>>> logoutAll(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+
+        String token = jwtTokenService.extractTokenFromHeader(authHeader);
+
+        if (token == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        return authService.logoutAll(token)
+                .thenReturn(ResponseEntity.ok(Map.<String, Object>of("success", true, "message", "All sessions revoked")))
+                .onErrorResume(this::handleError);
+    }
+
     /**
      * Validate JWT token and get user info
      * GET /auth/validate
@@ -96,14 +176,14 @@ public class AuthController {
                     .body(Map.of("valid", false, "message", "Missing or invalid token")));
         }
 
-        return authService.validateToken(token)
+        return authService.validateAccessToken(token)
                 .map(user -> {
                     Map<String, Object> response = Map.of(
                             "valid", true,
-                            "userId", user.getId(),
-                            "email", user.getEmail(),
-                            "role", user.getRole(),
-                            "isVerified", user.getIsVerified()
+                            "userId", user.id(),
+                            "email", user.email(),
+                            "role", user.role(),
+                            "isVerified", user.isVerified()
                     );
                     return ResponseEntity.ok(response);
                 })
@@ -111,6 +191,37 @@ public class AuthController {
                         .body(Map.of("valid", false, "message", "Invalid token")));
     }
 
+    /**
+     * Validate many JWT tokens in one call, results in request order
+     * POST /auth/validate/batch
+     */
+    @PostMapping("/validate/batch")
+    public Mono<ResponseEntity<Map<String, Object>>> validateTokens(@RequestBody Map<String, List<String>> request) {
+        List<String> tokens = request.get("tokens");
+
+        if (tokens == null || tokens.isEmpty() || tokens.size() > maxBatchSize) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("message", "Provide between 1 and " + maxBatchSize + " tokens")));
+        }
+
+        return authService.validateAccessTokens(tokens)
+                .map(users -> {
+                    List<Map<String, Object>> results = users.stream()
+                            .map(result -> result
+                                    .<Map<String, Object>>map(user -> Map.of(
+                                            "valid", true,
+                                            "userId", user.id(),
+                                            "email", user.email(),
+                                            "role", user.role(),
+                                            "isVerified", user.isVerified()
+                                    ))
+                                    .orElseGet(() -> Map.of("valid", false, "message", "Invalid token")))
+                            .toList();
+                    return ResponseEntity.ok(Map.<String, Object>of("results", results));
+                })
+                .onErrorResume(this::handleError);
+    }
+
     /**
      * Get current user profile
      * GET /auth/profile
@@ -125,8 +236,8 @@ public class AuthController {
             return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
         }
 
-        return authService.validateToken(token)
-                .flatMap(user -> authService.getUserProfile(user.getId()))
+        return authService.validateAccessToken(token)
+                .flatMap(user -> authService.getUserProfile(user.id()))
                 .map(user -> ResponseEntity.ok(user))
                 .onErrorResume(this::handleError);
     }
@@ -142,6 +253,83 @@ public class AuthController {
                 .onErrorResume(this::handleError);
     }
 
+    /**
+     * Get many user profiles in one call (for inter-service communication)
+     * POST /auth/users/lookup
+     */
+    @PostMapping("/users/lookup")
+    public Mono<ResponseEntity<Map<String, Object>>> lookupUsers(@RequestBody Map<String, List<Long>> request) {
+        List<Long> ids = request.get("ids");
+
+        if (ids == null || ids.isEmpty() || ids.size() > maxLookupSize || ids.contains(null)) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("message", "Provide between 1 and " + maxLookupSize + " ids")));
+        }
+
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        return authService.getUserProfiles(distinctIds)
+                .map(found -> {
+                    Map<String, UserSummary> users = new LinkedHashMap<>();
+                    List<Long> missing = new ArrayList<>();
+                    for (Long id : distinctIds) {
+                        UserSummary user = found.get(id);
+                        if (user != null) {
+                            users.put(String.valueOf(id), user);
+                        } else {
+                            missing.add(id);
+                        }
+                    }
+                    return ResponseEntity.ok(Map.<String, Object>of("users", users, "missing", missing));
+                })
+                .onErrorResume(this::handleError);
+    }
+
+    /**
+     * Compatible donors for a recipient, nearest first (for inter-service communication)
+     * GET /auth/donors/match?bloodType=A%2B&component=RED_CELLS&lat=..&lng=..&radiusKm=..&limit=..
+     * A full page carries nextCursor; pass its afterDistanceKm and afterId to get the next page.
+     */
+    @GetMapping("/donors/match")
+    public Mono<ResponseEntity<Map<String, Object>>> matchDonors(
+            @RequestParam String bloodType,
+            @RequestParam(defaultValue = "RED_CELLS") String component,
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "50") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) Double afterDistanceKm,
+            @RequestParam(required = false) Long afterId) {
+
+        BloodType recipient = BloodType.fromCode(bloodType);
+        BloodType.Component requested = parseComponent(component);
+        if (recipient == null || requested == null || radiusKm <= 0 || Math.abs(lat) > 90 || Math.abs(lng) > 180) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("message", "Provide a valid blood type, component, location and radius")));
+        }
+        if ((afterDistanceKm == null) != (afterId == null) || (afterDistanceKm != null && afterDistanceKm < 0)) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("message", "Provide both afterDistanceKm and afterId from nextCursor, or neither")));
+        }
+
+        int pageSize = donorSearchService.pageSize(limit);
+        return donorSearchService.matchDonors(recipient, requested, lat, lng, radiusKm, limit, afterDistanceKm, afterId)
+                .collectList()
+                .map(donors -> {
+                    Map<String, Object> response = new LinkedHashMap<>();
+                    response.put("recipientBloodType", recipient.code());
+                    response.put("component", requested.name());
+                    response.put("donors", donors);
+                    if (donors.size() == pageSize) {
+                        DonorMatch last = donors.get(donors.size() - 1);
+                        response.put("nextCursor", Map.of(
+                                "afterDistanceKm", last.distanceKm(),
+                                "afterId", last.id()));
+                    }
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(this::handleError);
+    }
+
     /**
      * Verify user account
      * POST /auth/verify/{userId}
@@ -161,6 +349,79 @@ public class AuthController {
                 .onErrorResume(this::handleError);
     }
 
+    /**
+     * Deactivate user account
+     * POST /auth/deactivate/{userId}
+     */
+    @PostMapping("/deactivate/{userId}")
+    public Mono<ResponseEntity<Map<String, Object>>> deactivateUser(@PathVariable Long userId) {
+        return authService.deactivateUser(userId)
+                .map(user -> {
+                    Map<String, Object> response = Map.of(
+                            "success", true,
+                            "message", "User deactivated successfully",
+                            "userId", user.getId(),
+                            "isActive", user.getIsActive()
+                    );
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(this::handleError);
+    }
+
+    /**
+     * Publish a new signing key; it starts signing after the activation delay (operator tooling, X-API-Key)
+     * POST /auth/admin/keys/rotate
+     */
+    @PostMapping("/admin/keys/rotate")
+    public Mono<ResponseEntity<Map<String, Object>>> rotateSigningKey() {
+        return signingKeys.rotate()
+                .map(kid -> {
+                    Map<String, Object> response = Map.of(
+                            "success", true,
+                            "message", "Signing key published",
+                            "kid", kid
+                    );
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(this::handleError);
+    }
+
+    /**
+     * Stream users as NDJSON, one object per line, optionally filtered and reduced to some fields (operator tooling, X-API-Key)
+     * GET /auth/admin/users/export?role=DONOR&organizationId=..&bloodType=O-&fields=id,email,bloodType
+     */
+    @GetMapping(value = "/admin/users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<Map<String, Object>>> exportUsers(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) Long organizationId,
+            @RequestParam(required = false) String bloodType,
+            @RequestParam(required = false) List<String> fields) {
+
+        Role roleFilter = null;
+        if (role != null) {
+            try {
+                roleFilter = Role.valueOf(role.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        String bloodTypeFilter = null;
+        if (bloodType != null) {
+            BloodType parsed = BloodType.fromCode(bloodType);
+            if (parsed == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            bloodTypeFilter = parsed.code();
+        }
+        if (fields != null && !UserExportService.FIELDS.keySet().containsAll(fields)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(userExportService.export(roleFilter, organizationId, bloodTypeFilter, fields));
+    }
+
     /**
      * Health check endpoint
      * GET /auth/health
@@ -194,10 +455,51 @@ public class AuthController {
         )));
     }
 
+    /**
+     * Client address for login throttling; X-Forwarded-For is only trusted behind a known proxy
+     */
+    private String clientIp(ServerHttpRequest request) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        // Repeated headers are one list of hops in order
+        String forwardedFor = String.join(",", request.getHeaders().getOrEmpty("X-Forwarded-For"));
+        return loginThrottle.clientIp(remote == null ? null : remote.getAddress(), forwardedFor);
+    }
+
+    private static BloodType.Component parseComponent(String component) {
+        for (BloodType.Component candidate : BloodType.Component.values()) {
+            if (candidate.name().equalsIgnoreCase(component.trim())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
     /**
      * Handle errors and return appropriate HTTP responses
      */
     private <T> Mono<ResponseEntity<T>> handleError(Throwable error) {
+        if (error instanceof LoginThrottle.ThrottledException throttled) {
+            @SuppressWarnings("unchecked")
+            T body = (T) Map.of(
+                "error", "Too many login attempts",
+                "code", "RATE_LIMITED"
+            );
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, throttled.getRetryAfter().toSeconds())))
+                    .body(body));
+        }
+
+        if (error instanceof PasswordHashingExecutor.SaturatedException saturated) {
+            @SuppressWarnings("unchecked")
+            T body = (T) Map.of(
+                "error", "Service busy, retry later",
+                "code", "SERVICE_BUSY"
+            );
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, saturated.getRetryAfter().toSeconds())))
+                    .body(body));
+        }
+
         String message = error.getMessage();
         
         // Log the full error for debugging
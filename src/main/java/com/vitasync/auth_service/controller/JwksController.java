@@ -0,0 +1,34 @@
+package com.vitasync.auth_service.controller;
+
+import com.vitasync.auth_service.service.JwtSigningKeys;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Publishes JWT verification keys so other VitaSync services can validate tokens locally
+ */
+@RestController
+public class JwksController {
+
+    private final JwtSigningKeys signingKeys;
+
+    public JwksController(JwtSigningKeys signingKeys) {
+        this.signingKeys = signingKeys;
+    }
+
+    /**
+     * JSON Web Key Set, cacheable only for as long as a newly published key waits before signing
+     * GET /.well-known/jwks.json
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public Mono<ResponseEntity<Map<String, Object>>> jwks() {
+        return Mono.just(ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(signingKeys.jwksMaxAge()).cachePublic())
+                .body(signingKeys.jwkSet()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.vitasync.auth_service.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * ABO/Rh blood types with precomputed donor compatibility bitmasks.
+ * Each type owns one bit; {@link #donorMask(Component)} is the set of donor types a
+ * recipient of this type can receive the component from, so a compatibility check
+ * is a single AND against the donor's {@link #bit()}.
+ */
+public enum BloodType {
+    O_NEG("O-", 0, false),
+    O_POS("O+", 0, true),
+    A_NEG("A-", Antigen.A, false),
+    A_POS("A+", Antigen.A, true),
+    B_NEG("B-", Antigen.B, false),
+    B_POS("B+", Antigen.B, true),
+    AB_NEG("AB-", Antigen.A | Antigen.B, false),
+    AB_POS("AB+", Antigen.A | Antigen.B, true);
+
+    /**
+     * Blood component being transfused
+     */
+    public enum Component {
+        RED_CELLS,
+        PLASMA,
+        PLATELETS
+    }
+
+    private static final BloodType[] VALUES = values();
+
+    private final String code;
+    private final int antigens;
+    private final boolean rhPositive;
+    private final int[] donorMasks = new int[Component.values().length];
+
+    BloodType(String code, int antigens, boolean rhPositive) {
+        this.code = code;
+        this.antigens = antigens;
+        this.rhPositive = rhPositive;
+    }
+
+    static {
+        for (BloodType recipient : VALUES) {
+            for (BloodType donor : VALUES) {
+                // Red cells: the donor's ABO antigens must be a subset of the recipient's;
+                // Rh-negative recipients only receive Rh-negative cells
+                boolean rhOk = recipient.rhPositive || !donor.rhPositive;
+                if ((donor.antigens & ~recipient.antigens) == 0 && rhOk) {
+                    recipient.donorMasks[Component.RED_CELLS.ordinal()] |= donor.bit();
+                }
+                // Plasma carries antibodies, so the rule is reversed and Rh does not apply
+                boolean plasmaOk = (recipient.antigens & ~donor.antigens) == 0;
+                if (plasmaOk) {
+                    recipient.donorMasks[Component.PLASMA.ordinal()] |= donor.bit();
+                }
+                // Platelets: ABO plasma-compatible and Rh-matched as for red cells
+                if (plasmaOk && rhOk) {
+                    recipient.donorMasks[Component.PLATELETS.ordinal()] |= donor.bit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Storage and wire code, e.g. "AB-"
+     */
+    public String code() {
+        return code;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Donor types this recipient can receive the component from
+     */
+    public int donorMask(Component component) {
+        return donorMasks[component.ordinal()];
+    }
+
+    /**
+     * Check whether a donor of the given type can give this recipient the component
+     */
+    public boolean canReceiveFrom(BloodType donor, Component component) {
+        return (donorMask(component) & donor.bit()) != 0;
+    }
+
+    /**
+     * Parse a stored code such as "o+" or "AB-"; null if absent or unknown
+     */
+    public static BloodType fromCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        String normalized = code.trim().toUpperCase(Locale.ROOT);
+        for (BloodType type : VALUES) {
+            if (type.code.equals(normalized)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Type with the given ordinal, for array-indexed partitions
+     */
+    public static BloodType ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Storage codes of every type in a mask, for database IN-lists
+     */
+    public static List<String> codes(int mask) {
+        List<String> codes = new ArrayList<>(VALUES.length);
+        for (BloodType type : VALUES) {
+            if ((mask & type.bit()) != 0) {
+                codes.add(type.code);
+            }
+        }
+        return codes;
+    }
+
+    private static final class Antigen {
+        static final int A = 1;
+        static final int B = 2;
+    }
+}
@@ -0,0 +1,14 @@
+package com.vitasync.auth_service.model;
+
+/**
+ * Projection of an active, verified donor's position for the in-memory donor index
+ */
+public record DonorLocation(Long id,
+                            String bloodType,
+                            Double locationLat,
+                            Double locationLng) {
+
+    public static DonorLocation of(User user) {
+        return new DonorLocation(user.getId(), user.getBloodType(), user.getLocationLat(), user.getLocationLng());
+    }
+}
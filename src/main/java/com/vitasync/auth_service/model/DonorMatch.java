@@ -0,0 +1,13 @@
+package com.vitasync.auth_service.model;
+
+/**
+ * A donor returned by the radius search, with its distance from the search point
+ */
+public record DonorMatch(Long id,
+                         String firstName,
+                         String lastName,
+                         String phoneNumber,
+                         String bloodType,
+                         Long organizationId,
+                         Double distanceKm) {
+}
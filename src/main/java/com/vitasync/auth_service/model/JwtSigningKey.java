@@ -0,0 +1,79 @@
+package com.vitasync.auth_service.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted JWT signing key, shared by all auth-service nodes through the database
+ */
+@Table("jwt_signing_keys")
+public class JwtSigningKey {
+
+    @Id
+    private String kid;
+
+    @Column("algorithm")
+    private String algorithm;
+
+    @Column("secret")
+    private String secret; // Base64 HMAC key or PKCS#8 EC private key
+
+    @Column("public_key")
+    private String publicKey; // Base64 X.509 EC public key, null for HMAC
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    public JwtSigningKey() {}
+
+    public JwtSigningKey(String kid, String algorithm, String secret, String publicKey, LocalDateTime createdAt) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.secret = secret;
+        this.publicKey = publicKey;
+        this.createdAt = createdAt;
+    }
+
+    public String getKid() {
+        return kid;
+    }
+
+    public void setKid(String kid) {
+        this.kid = kid;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+
+    public String getPublicKey() {
+        return publicKey;
+    }
+
+    public void setPublicKey(String publicKey) {
+        this.publicKey = publicKey;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
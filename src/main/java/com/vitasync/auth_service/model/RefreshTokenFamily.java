@@ -0,0 +1,95 @@
+package com.vitasync.auth_service.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A chain of rotated refresh tokens started by one login.
+ * Only the current member may be exchanged; presenting any older one revokes the family.
+ */
+@Table("refresh_token_families")
+public class RefreshTokenFamily {
+
+    @Id
+    private UUID familyId;
+
+    @Column("user_id")
+    private Long userId;
+
+    @Column("current_jti")
+    private UUID currentJti;
+
+    @Column("previous_jti")
+    private UUID previousJti;
+
+    @Column("rotated_at")
+    private LocalDateTime rotatedAt;
+
+    @Column("revoked")
+    private Boolean revoked = false;
+
+    @Column("expires_at")
+    private LocalDateTime expiresAt;
+
+    public RefreshTokenFamily() {}
+
+    public UUID getFamilyId() {
+        return familyId;
+    }
+
+    public void setFamilyId(UUID familyId) {
+        this.familyId = familyId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public UUID getCurrentJti() {
+        return currentJti;
+    }
+
+    public void setCurrentJti(UUID currentJti) {
+        this.currentJti = currentJti;
+    }
+
+    public UUID getPreviousJti() {
+        return previousJti;
+    }
+
+    public void setPreviousJti(UUID previousJti) {
+        this.previousJti = previousJti;
+    }
+
+    public LocalDateTime getRotatedAt() {
+        return rotatedAt;
+    }
+
+    public void setRotatedAt(LocalDateTime rotatedAt) {
+        this.rotatedAt = rotatedAt;
+    }
+
+    public Boolean getRevoked() {
+        return revoked;
+    }
+
+    public void setRevoked(Boolean revoked) {
+        this.revoked = revoked;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,60 @@
+package com.vitasync.auth_service.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Access token revoked before its natural expiry (logout)
+ */
+@Table("revoked_access_tokens")
+public class RevokedAccessToken {
+
+    @Id
+    private String jti;
+
+    @Column("user_id")
+    private Long userId;
+
+    @Column("expires_at")
+    private LocalDateTime expiresAt;
+
+    @Column("revoked_at")
+    private LocalDateTime revokedAt;
+
+    public RevokedAccessToken() {}
+
+    public String getJti() {
+        return jti;
+    }
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(LocalDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+}
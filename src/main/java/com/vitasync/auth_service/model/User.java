@@ -60,6 +60,9 @@ public class User implements UserDetails {
     @Column("organization_id")
     private Long organizationId; // For hospital staff, NGO coordinators
     
+    @Column("security_version")
+    private Integer securityVersion = 0; // Stamped into access tokens for stateless validation
+    
     @Column("created_at")
     private LocalDateTime createdAt;
     
@@ -227,6 +230,14 @@ public class User implements UserDetails {
         this.organizationId = organizationId;
     }
 
+    public Integer getSecurityVersion() {
+        return securityVersion;
+    }
+
+    public void setSecurityVersion(Integer securityVersion) {
+        this.securityVersion = securityVersion;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -280,6 +291,39 @@ public class User implements UserDetails {
         return role == Role.NGO_COORDINATOR;
     }
 
+    /**
+     * Invalidate previously issued access tokens after a security-relevant change
+     */
+    public void bumpSecurityVersion() {
+        this.securityVersion = (securityVersion == null ? 0 : securityVersion) + 1;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Detached copy, optionally without the password hash, for sharing cached users
+     */
+    public User copy(boolean includePasswordHash) {
+        User copy = new User();
+        copy.id = id;
+        copy.email = email;
+        copy.phoneNumber = phoneNumber;
+        copy.passwordHash = includePasswordHash ? passwordHash : null;
+        copy.firstName = firstName;
+        copy.lastName = lastName;
+        copy.role = role;
+        copy.isActive = isActive;
+        copy.isVerified = isVerified;
+        copy.bloodType = bloodType;
+        copy.locationLat = locationLat;
+        copy.locationLng = locationLng;
+        copy.organizationId = organizationId;
+        copy.securityVersion = securityVersion;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        copy.lastLogin = lastLogin;
+        return copy;
+    }
+
     public void updateLastLogin() {
         this.lastLogin = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
@@ -0,0 +1,18 @@
+package com.vitasync.auth_service.model;
+
+/**
+ * Narrow projection of a user for token validation: only the columns the
+ * validate paths read, instead of hydrating the full {@link User} entity
+ */
+public record UserIdentity(Long id,
+                           String email,
+                           Role role,
+                           Boolean isActive,
+                           Boolean isVerified,
+                           Integer securityVersion) {
+
+    public static UserIdentity of(User user) {
+        return new UserIdentity(user.getId(), user.getEmail(), user.getRole(),
+                user.getIsActive(), user.getIsVerified(), user.getSecurityVersion());
+    }
+}
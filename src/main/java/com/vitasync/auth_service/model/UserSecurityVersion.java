@@ -0,0 +1,12 @@
+package com.vitasync.auth_service.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a user's security version for the in-memory version table,
+ * with the row's update time so the table can be polled incrementally
+ */
+public record UserSecurityVersion(Long id,
+                                  Integer securityVersion,
+                                  LocalDateTime updatedAt) {
+}
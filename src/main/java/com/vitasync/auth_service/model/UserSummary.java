@@ -0,0 +1,24 @@
+package com.vitasync.auth_service.model;
+
+/**
+ * Compact profile projection served by /auth/users/lookup and the admin export.
+ * Leaves out credentials, location, audit timestamps and the UserDetails accessors;
+ * /auth/profile and /auth/user/{userId} keep returning the full user.
+ */
+public record UserSummary(Long id,
+                          String email,
+                          String phoneNumber,
+                          String firstName,
+                          String lastName,
+                          Role role,
+                          Boolean isActive,
+                          Boolean isVerified,
+                          String bloodType,
+                          Long organizationId) {
+
+    public static UserSummary of(User user) {
+        return new UserSummary(user.getId(), user.getEmail(), user.getPhoneNumber(),
+                user.getFirstName(), user.getLastName(), user.getRole(),
+                user.getIsActive(), user.getIsVerified(), user.getBloodType(), user.getOrganizationId());
+    }
+}
@@ -0,0 +1,60 @@
+package com.vitasync.auth_service.repository;
+
+import com.vitasync.auth_service.model.JwtSigningKey;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reactive repository for the shared JWT signing key ring
+ */
+@Repository
+public interface JwtSigningKeyRepository extends ReactiveCrudRepository<JwtSigningKey, String> {
+
+    /**
+     * Find keys that may still have live tokens signed with them
+     */
+    Flux<JwtSigningKey> findByCreatedAtAfterOrderByCreatedAtAsc(LocalDateTime cutoff);
+
+    /**
+     * The newest key created at or before the cutoff, i.e. the one its successor replaced
+     */
+    Mono<JwtSigningKey> findFirstByCreatedAtLessThanEqualOrderByCreatedAtDesc(LocalDateTime cutoff);
+
+    /**
+     * The newest key of an algorithm, kept in the ring however old it is
+     */
+    Mono<JwtSigningKey> findFirstByAlgorithmOrderByCreatedAtDesc(String algorithm);
+
+    /**
+     * Insert a newly generated key (kid is assigned by us, so save() would attempt an update)
+     */
+    @Query("""
+        INSERT INTO jwt_signing_keys (kid, algorithm, secret, public_key, created_at)
+        VALUES (:kid, :algorithm, :secret, :publicKey, :createdAt)
+        """)
+    Mono<Void> insert(String kid, String algorithm, String secret, String publicKey, LocalDateTime createdAt);
+
+    /**
+     * Transaction-scoped advisory lock; false when another transaction holds it
+     */
+    @Query("SELECT pg_try_advisory_xact_lock(:lockId)")
+    Mono<Boolean> tryAdvisoryXactLock(long lockId);
+
+    /**
+     * Insert a rotated key unless some node already published one after the given time
+     */
+    @Modifying
+    @Query("""
+        INSERT INTO jwt_signing_keys (kid, algorithm, secret, public_key, created_at)
+        SELECT :kid, :algorithm, :secret, :publicKey, :createdAt
+        WHERE NOT EXISTS (SELECT 1 FROM jwt_signing_keys WHERE created_at > :rotatedAfter)
+        """)
+    Mono<Integer> insertIfNoneCreatedAfter(String kid, String algorithm, String secret, String publicKey,
+                                           LocalDateTime createdAt, LocalDateTime rotatedAfter);
+}
@@ -0,0 +1,78 @@
+package com.vitasync.auth_service.repository;
+
+import com.vitasync.auth_service.model.RefreshTokenFamily;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Reactive repository for refresh token families
+ */
+@Repository
+public interface RefreshTokenFamilyRepository extends ReactiveCrudRepository<RefreshTokenFamily, UUID> {
+
+    /**
+     * Start a new family (the id is generated by us, so save() would attempt an update)
+     */
+    @Modifying
+    @Query("""
+        INSERT INTO refresh_token_families (family_id, user_id, current_jti, revoked, expires_at)
+        VALUES (:familyId, :userId, :currentJti, false, :expiresAt)
+        """)
+    Mono<Integer> insert(UUID familyId, Long userId, UUID currentJti, LocalDateTime expiresAt);
+
+    /**
+     * Advance the family to the next token only if the presented one is still current
+     */
+    @Modifying
+    @Query("""
+        UPDATE refresh_token_families
+        SET previous_jti = current_jti, current_jti = :nextJti, rotated_at = :rotatedAt, expires_at = :expiresAt
+        WHERE family_id = :familyId AND current_jti = :presentedJti AND revoked = false
+        """)
+    Mono<Integer> rotate(UUID familyId, UUID presentedJti, UUID nextJti, LocalDateTime rotatedAt,
+                         LocalDateTime expiresAt);
+
+    /**
+     * The current token of a live family that was rotated away from the presented token after the cutoff
+     */
+    @Query("""
+        SELECT current_jti FROM refresh_token_families
+        WHERE family_id = :familyId AND previous_jti = :presentedJti AND revoked = false
+          AND rotated_at > :rotatedAfter
+        """)
+    Mono<UUID> findCurrentJtiRotatedFrom(UUID familyId, UUID presentedJti, LocalDateTime rotatedAfter);
+
+    /**
+     * Revoke a single family
+     */
+    @Modifying
+    @Query("UPDATE refresh_token_families SET revoked = true WHERE family_id = :familyId")
+    Mono<Integer> revoke(UUID familyId);
+
+    /**
+     * Revoke every family belonging to a user
+     */
+    @Modifying
+    @Query("UPDATE refresh_token_families SET revoked = true WHERE user_id = :userId AND revoked = false")
+    Mono<Integer> revokeByUserId(Long userId);
+
+    /**
+     * Delete up to :batchSize expired families
+     */
+    @Modifying
+    @Query("""
+        DELETE FROM refresh_token_families
+        WHERE family_id IN (
+            SELECT family_id FROM refresh_token_families
+            WHERE expires_at < NOW()
+            LIMIT :batchSize
+        )
+        """)
+    Mono<Integer> deleteExpired(int batchSize);
+}
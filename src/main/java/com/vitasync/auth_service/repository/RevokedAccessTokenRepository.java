@@ -0,0 +1,60 @@
+package com.vitasync.auth_service.repository;
+
+import com.vitasync.auth_service.model.RevokedAccessToken;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reactive repository for the persisted access token denylist
+ */
+@Repository
+public interface RevokedAccessTokenRepository extends ReactiveCrudRepository<RevokedAccessToken, String> {
+
+    /**
+     * Record a revoked token, stamped with the database clock so peers can poll for it
+     * without depending on node clocks; repeated logouts with the same token are no-ops
+     */
+    @Modifying
+    @Query("""
+        INSERT INTO revoked_access_tokens (jti, user_id, expires_at, revoked_at)
+        VALUES (:jti, :userId, :expiresAt, LOCALTIMESTAMP)
+        ON CONFLICT (jti) DO NOTHING
+        """)
+    Mono<Integer> insert(String jti, Long userId, LocalDateTime expiresAt);
+
+    /**
+     * The database clock, in the same terms as revoked_at
+     */
+    @Query("SELECT LOCALTIMESTAMP")
+    Mono<LocalDateTime> databaseTime();
+
+    /**
+     * Revocations still in force, for rebuilding the filter at startup
+     */
+    Flux<RevokedAccessToken> findByExpiresAtAfter(LocalDateTime now);
+
+    /**
+     * Revocations stamped after the given database time, including those from other nodes
+     */
+    Flux<RevokedAccessToken> findByRevokedAtAfter(LocalDateTime since);
+
+    /**
+     * Delete up to :batchSize entries whose token has expired anyway
+     */
+    @Modifying
+    @Query("""
+        DELETE FROM revoked_access_tokens
+        WHERE jti IN (
+            SELECT jti FROM revoked_access_tokens
+            WHERE expires_at < NOW()
+            LIMIT :batchSize
+        )
+        """)
+    Mono<Integer> deleteExpired(int batchSize);
+}
@@ -1,13 +1,22 @@
 package com.vitasync.auth_service.repository;
 
+import com.vitasync.auth_service.model.DonorLocation;
+import com.vitasync.auth_service.model.DonorMatch;
 import com.vitasync.auth_service.model.Role;
 import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.model.UserIdentity;
+import com.vitasync.auth_service.model.UserSecurityVersion;
+import com.vitasync.auth_service.model.UserSummary;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
 /**
  * Reactive repository for User entity using R2DBC
  */
@@ -19,6 +28,28 @@ public interface UserRepository extends ReactiveCrudRepository<User, Long> {
      */
     Mono<User> findByEmail(String email);
     
+    /**
+     * Validation projection of a user by email
+     */
+    @Query("SELECT id, email, role, is_active, is_verified, security_version FROM users WHERE email = :email")
+    Mono<UserIdentity> findIdentityByEmail(String email);
+    
+    /**
+     * Validation projections for a set of email addresses in one query
+     */
+    @Query("SELECT id, email, role, is_active, is_verified, security_version FROM users WHERE email IN (:emails)")
+    Flux<UserIdentity> findIdentitiesByEmailIn(Collection<String> emails);
+    
+    /**
+     * Profile projections for a set of ids in one query
+     */
+    @Query("""
+        SELECT id, email, phone_number, first_name, last_name, role,
+               is_active, is_verified, blood_type, organization_id
+        FROM users WHERE id IN (:ids)
+        """)
+    Flux<UserSummary> findSummariesByIdIn(Collection<Long> ids);
+    
     /**
      * Find user by phone number
      */
@@ -34,6 +65,12 @@ public interface UserRepository extends ReactiveCrudRepository<User, Long> {
      */
     Mono<Boolean> existsByPhoneNumber(String phoneNumber);
     
+    /**
+     * Check email and phone number uniqueness in one query
+     */
+    Mono<Boolean> existsByEmailOrPhoneNumber(String email, String phoneNumber);
+    
+    
     /**
      * Find all users by role
      */
@@ -59,6 +96,36 @@ public interface UserRepository extends ReactiveCrudRepository<User, Long> {
      */
     Flux<User> findByRoleAndBloodType(Role role, String bloodType);
     
+    /**
+     * One keyset page of export rows after {@code afterId}, in id order.
+     * Null filters match every user; paging on the primary key keeps each page an index range scan.
+     */
+    @Query("""
+        SELECT id, email, phone_number, first_name, last_name, role,
+               is_active, is_verified, blood_type, organization_id
+        FROM users
+        WHERE id > :afterId
+        AND (CAST(:role AS VARCHAR) IS NULL OR role = :role)
+        AND (CAST(:organizationId AS BIGINT) IS NULL OR organization_id = :organizationId)
+        AND (CAST(:bloodType AS VARCHAR) IS NULL OR blood_type = :bloodType)
+        ORDER BY id
+        LIMIT :limit
+        """)
+    Flux<UserSummary> findExportPage(Long afterId, String role, Long organizationId, String bloodType, Integer limit);
+    
+    /**
+     * Positions of all active, verified donors, for building the in-memory donor index
+     */
+    @Query("""
+        SELECT id, blood_type, location_lat, location_lng FROM users
+        WHERE role = 'DONOR'
+        AND is_active = true
+        AND is_verified = true
+        AND location_lat IS NOT NULL
+        AND location_lng IS NOT NULL
+        """)
+    Flux<DonorLocation> findDonorLocations();
+    
     /**
      * Find donors within a certain radius using Haversine formula
      * This query finds donors within specified distance from a location
@@ -81,40 +148,82 @@ public interface UserRepository extends ReactiveCrudRepository<User, Long> {
     Flux<User> findDonorsWithinRadius(Double lat, Double lng, Double radiusKm);
     
     /**
-     * Find compatible donors for a blood type within radius
+     * One page of compatible donors within a radius, nearest first.
+     * The bounding box lets idx_users_donor_location narrow the rows before the exact
+     * Haversine distance is computed once per survivor; pages continue after the
+     * (distance, id) keyset of the previous page's last row.
      */
     @Query("""
-        SELECT * FROM users 
-        WHERE role = 'DONOR' 
-        AND is_active = true 
-        AND is_verified = true
-        AND blood_type IN (:compatibleBloodTypes)
-        AND location_lat IS NOT NULL 
-        AND location_lng IS NOT NULL
-        AND (
-            6371 * acos(
-                cos(radians(:lat)) * cos(radians(location_lat)) * 
-                cos(radians(location_lng) - radians(:lng)) + 
-                sin(radians(:lat)) * sin(radians(location_lat))
-            )
-        ) <= :radiusKm
-        ORDER BY (
-            6371 * acos(
-                cos(radians(:lat)) * cos(radians(location_lat)) * 
-                cos(radians(location_lng) - radians(:lng)) + 
-                sin(radians(:lat)) * sin(radians(location_lat))
-            )
-        ) ASC
+        SELECT id, first_name, last_name, phone_number, blood_type, organization_id, distance_km
+        FROM (
+            SELECT id, first_name, last_name, phone_number, blood_type, organization_id,
+                   2 * 6371 * asin(sqrt(
+                       power(sin(radians(location_lat - :lat) / 2), 2) +
+                       cos(radians(:lat)) * cos(radians(location_lat)) *
+                       power(sin(radians(location_lng - :lng) / 2), 2)
+                   )) AS distance_km
+            FROM users
+            WHERE role = 'DONOR'
+            AND is_active = true
+            AND is_verified = true
+            AND blood_type IN (:compatibleBloodTypes)
+            AND location_lat BETWEEN :minLat AND :maxLat
+            AND location_lng BETWEEN :minLng AND :maxLng
+        ) candidates
+        WHERE distance_km <= :radiusKm
+        AND (distance_km, id) > (:afterDistanceKm, :afterId)
+        ORDER BY distance_km, id
+        LIMIT :limit
         """)
-    Flux<User> findCompatibleDonorsWithinRadius(Double lat, Double lng, 
-                                               Double radiusKm, 
-                                               String[] compatibleBloodTypes);
+    Flux<DonorMatch> findCompatibleDonorsWithinRadius(Double lat, Double lng, Double radiusKm,
+                                                      Collection<String> compatibleBloodTypes,
+                                                      Double minLat, Double maxLat,
+                                                      Double minLng, Double maxLng,
+                                                      Double afterDistanceKm, Long afterId,
+                                                      Integer limit);
     
     /**
      * Find users by organization ID (for hospital staff, NGO coordinators)
      */
     Flux<User> findByOrganizationId(Long organizationId);
     
+    /**
+     * Security versions of every user whose version has been bumped at least once
+     */
+    @Query("""
+        SELECT id, security_version, updated_at FROM users
+        WHERE security_version > 0
+        """)
+    Flux<UserSecurityVersion> findBumpedSecurityVersions();
+
+    /**
+     * Security versions of bumped users updated after the given time
+     */
+    @Query("""
+        SELECT id, security_version, updated_at FROM users
+        WHERE security_version > 0 AND updated_at > :since
+        """)
+    Flux<UserSecurityVersion> findBumpedSecurityVersionsUpdatedAfter(LocalDateTime since);
+    
+    /**
+     * Replace a password hash, only if it has not changed since it was read
+     */
+    @Modifying
+    @Query("UPDATE users SET password_hash = :newHash, updated_at = NOW() WHERE id = :userId AND password_hash = :oldHash")
+    Mono<Integer> updatePasswordHash(Long userId, String oldHash, String newHash);
+    
+    /**
+     * Apply a batch of last-login stamps in one statement; older stamps never overwrite newer ones
+     */
+    @Modifying
+    @Query("""
+        UPDATE users AS u
+        SET last_login = v.last_login, updated_at = NOW()
+        FROM unnest(CAST(:userIds AS bigint[]), CAST(:loginTimes AS timestamp[])) AS v(id, last_login)
+        WHERE u.id = v.id AND (u.last_login IS NULL OR u.last_login < v.last_login)
+        """)
+    Mono<Integer> updateLastLogins(Long[] userIds, LocalDateTime[] loginTimes);
+    
     /**
      * Update last login timestamp
      */
@@ -0,0 +1,218 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.RevokedAccessToken;
+import com.vitasync.auth_service.repository.RevokedAccessTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Denylist of access tokens revoked by logout, keyed by jti.
+ * A Bloom filter answers the common "not revoked" case without locks or allocation;
+ * the rare positive is confirmed against the exact set. Entries age out once the
+ * token's exp has passed and the filter is rebuilt without them.
+ * Peers are picked up by polling revoked_at, which the database stamps; the watermark is
+ * the newest stamp seen, less an overlap for inserts that commit a moment after stamping,
+ * so node clock skew cannot hide a revocation.
+ */
+@Service
+public class AccessTokenDenylist {
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenDenylist.class);
+
+    private final RevokedAccessTokenRepository revokedTokenRepository;
+
+    // jti -> token expiry (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final int sweepBatchSize;
+
+    private volatile BloomFilter filter;
+    // Newest revoked_at seen (database clock); null until the startup load has run
+    private volatile LocalDateTime watermark;
+
+    public AccessTokenDenylist(RevokedAccessTokenRepository revokedTokenRepository,
+                               @Value("${auth.denylist.expected-entries:100000}") int expectedEntries,
+                               @Value("${auth.denylist.false-positive-rate:0.001}") double falsePositiveRate,
+                               @Value("${auth.denylist.sweep-batch-size:1000}") int sweepBatchSize) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.sweepBatchSize = sweepBatchSize;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    /**
+     * Check whether a token id has been revoked
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt >= System.currentTimeMillis();
+    }
+
+    /**
+     * Revoke an access token until it expires
+     */
+    public Mono<Void> revoke(VerifiedToken token) {
+        if (token.jti() == null) {
+            return Mono.error(new RuntimeException("Invalid token: no jti"));
+        }
+        long expiresAt = token.expiration().getTime();
+        add(token.jti(), expiresAt);
+        return revokedTokenRepository.insert(token.jti(), token.userId(), toLocalDateTime(expiresAt))
+                .then();
+    }
+
+    /**
+     * Rebuild from the persisted table at startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        revokedTokenRepository.databaseTime()
+                .flatMap(loadStart -> revokedTokenRepository.findByExpiresAtAfter(loadStart)
+                        .doOnNext(this::add)
+                        .count()
+                        .doOnNext(count -> advanceWatermark(loadStart)))
+                .subscribe(
+                        count -> log.info("Access token denylist loaded: {} revoked tokens", count),
+                        error -> log.warn("Access token denylist load failed: {}", error.getMessage())
+                );
+    }
+
+    /**
+     * Pick up revocations recorded by other nodes; cached validations re-check the
+     * denylist on every hit, so nothing else needs evicting
+     */
+    @Scheduled(fixedDelayString = "${auth.denylist.reload-ms:5000}", initialDelayString = "${auth.denylist.reload-ms:5000}")
+    public void sync() {
+        LocalDateTime since = watermark;
+        if (since == null) {
+            // The startup load has not succeeded yet, so there is no watermark to poll from
+            load();
+            return;
+        }
+        // Overlap so rows stamped just before the newest one seen, but committed after it, are not missed
+        revokedTokenRepository.findByRevokedAtAfter(since.minusSeconds(5))
+                .doOnNext(row -> advanceWatermark(row.getRevokedAt()))
+                .filter(row -> !revoked.containsKey(row.getJti()))
+                .doOnNext(this::add)
+                .count()
+                .subscribe(
+                        count -> {},
+                        error -> log.warn("Access token denylist sync failed: {}", error.getMessage())
+                );
+    }
+
+    private synchronized void advanceWatermark(LocalDateTime seen) {
+        if (seen != null && (watermark == null || seen.isAfter(watermark))) {
+            watermark = seen;
+        }
+    }
+
+    /**
+     * Age out expired entries, rebuild the filter without them and purge the table in batches
+     */
+    @Scheduled(fixedDelayString = "${auth.denylist.sweep-ms:300000}", initialDelayString = "${auth.denylist.sweep-ms:300000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            revoked.values().removeIf(expiresAt -> expiresAt < now);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), falsePositiveRate);
+            revoked.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        }
+
+        revokedTokenRepository.deleteExpired(sweepBatchSize)
+                .expand(deleted -> deleted < sweepBatchSize ? Mono.empty() : revokedTokenRepository.deleteExpired(sweepBatchSize))
+                .reduce(0, Integer::sum)
+                .subscribe(
+                        deleted -> log.debug("Purged {} expired access token revocations", deleted),
+                        error -> log.warn("Access token denylist purge failed: {}", error.getMessage())
+                );
+    }
+
+    private void add(RevokedAccessToken row) {
+        add(row.getJti(), row.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private void add(String jti, long expiresAt) {
+        // Writers serialise with rebuilds so an entry is never lost between the old and new filter
+        synchronized (writeLock) {
+            revoked.put(jti, expiresAt);
+            filter.put(jti);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Fixed-size Bloom filter over an AtomicLongArray, using double hashing of the jti
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedEntries, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.max(1, (bits + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = wordCount * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+        }
+
+        void put(String value) {
+            long h1 = hash(value, 0x9E3779B97F4A7C15L);
+            long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                words.accumulateAndGet((int) (bit >>> 6), 1L << bit, (current, mask) -> current | mask);
+            }
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value, 0x9E3779B97F4A7C15L);
+            long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String value, long seed) {
+            long h = seed ^ value.length();
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001B3L;
+            }
+            // MurmurHash3 fmix64 finaliser
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
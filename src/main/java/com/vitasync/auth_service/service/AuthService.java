@@ -3,15 +3,27 @@ package com.vitasync.auth_service.service;
 import com.vitasync.auth_service.dto.AuthResponse;
 import com.vitasync.auth_service.dto.LoginRequest;
 import com.vitasync.auth_service.dto.RegisterRequest;
+import com.vitasync.auth_service.model.Role;
 import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.model.UserIdentity;
+import com.vitasync.auth_service.model.UserSummary;
 import com.vitasync.auth_service.repository.UserRepository;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Authentication service for VitaSync platform
@@ -24,94 +36,222 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenService jwtTokenService;
+    private final SecurityVersionService securityVersionService;
+    private final TokenValidationCache tokenValidationCache;
+    private final RefreshTokenStore refreshTokenStore;
+    private final AccessTokenDenylist accessTokenDenylist;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginThrottle loginThrottle;
+    private final CredentialCache credentialCache;
+    private final UserCache userCache;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final DonorIndex donorIndex;
+
+    @Value("${jwt.validate.stateless:false}")
+    private boolean statelessValidation;
 
     public AuthService(UserRepository userRepository, 
                       PasswordEncoder passwordEncoder,
-                      JwtTokenService jwtTokenService) {
+                      JwtTokenService jwtTokenService,
+                      SecurityVersionService securityVersionService,
+                      TokenValidationCache tokenValidationCache,
+                      RefreshTokenStore refreshTokenStore,
+                      AccessTokenDenylist accessTokenDenylist,
+                      PasswordHashingExecutor passwordHashingExecutor,
+                      LoginThrottle loginThrottle,
+                      CredentialCache credentialCache,
+                      UserCache userCache,
+                      LastLoginRecorder lastLoginRecorder,
+                      DonorIndex donorIndex) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtTokenService = jwtTokenService;
+        this.securityVersionService = securityVersionService;
+        this.tokenValidationCache = tokenValidationCache;
+        this.refreshTokenStore = refreshTokenStore;
+        this.accessTokenDenylist = accessTokenDenylist;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.loginThrottle = loginThrottle;
+        this.credentialCache = credentialCache;
+        this.userCache = userCache;
+        this.lastLoginRecorder = lastLoginRecorder;
+        this.donorIndex = donorIndex;
     }
 
     /**
      * Register a new user in the VitaSync platform
      */
     public Mono<AuthResponse> register(RegisterRequest request) {
-        return checkUserExists(request.getEmail(), request.getPhoneNumber())
+        // The pre-check only spares BCrypt for obvious duplicates; the insert itself is the atomic guard
+        return userRepository.existsByEmailOrPhoneNumber(request.getEmail(), request.getPhoneNumber())
                 .flatMap(exists -> {
                     if (exists) {
                         return Mono.error(new RuntimeException("User already exists with this email or phone number"));
                     }
                     return createNewUser(request);
                 })
-                .flatMap(userRepository::save)
-                .flatMap(this::generateAuthResponse);
+                .flatMap(this::insertUser)
+                .doOnNext(userCache::seed)
+                .doOnNext(donorIndex::update)
+                .flatMap(this::startSession);
     }
 
     /**
      * Authenticate user login
      */
-    public Mono<AuthResponse> login(LoginRequest request) {
-        return userRepository.findByEmail(request.getEmail())
+    public Mono<AuthResponse> login(LoginRequest request, String clientIp) {
+        return Mono.fromRunnable(() -> loginThrottle.acquire(request.getEmail(), clientIp))
+                .then(userCache.findByEmailWithCredentials(request.getEmail()))
                 .switchIfEmpty(Mono.defer(() -> {
                     log.warn("Login failed: user not found for email={}", request.getEmail());
                     return Mono.error(new RuntimeException("User not found"));
                 }))
                 .flatMap(user -> validatePassword(request.getPassword(), user))
+                .doOnNext(user -> loginThrottle.reset(request.getEmail()))
                 .flatMap(user -> updateLastLoginAndGenerateResponse(user));
     }
 
     /**
-     * Refresh JWT token using refresh token
+     * Refresh JWT token using an already verified refresh token
      */
-    public Mono<AuthResponse> refreshToken(String refreshToken) {
-        if (!jwtTokenService.validateTokenFormat(refreshToken) || 
-            !jwtTokenService.isRefreshToken(refreshToken)) {
+    public Mono<AuthResponse> refreshToken(VerifiedToken refreshToken) {
+        if (!refreshToken.isRefreshToken()) {
             return Mono.error(new RuntimeException("Invalid refresh token"));
         }
 
-        String email = jwtTokenService.extractUsername(refreshToken);
-        return userRepository.findByEmail(email)
+        return userCache.findByEmail(refreshToken.subject())
                 .switchIfEmpty(Mono.error(new RuntimeException("User not found")))
                 .flatMap(user -> {
-                    if (!jwtTokenService.validateToken(refreshToken, user)) {
+                    if (!refreshToken.belongsTo(user) || refreshToken.isExpired() || !user.getIsActive()) {
                         return Mono.error(new RuntimeException("Invalid refresh token"));
                     }
-                    return generateAuthResponse(user);
+                    return refreshTokenStore.rotate(refreshToken)
+                            .flatMap(grant -> generateAuthResponse(user, grant));
                 });
     }
 
     /**
-     * Validate user by JWT token
+     * Validate a raw access token, answering repeat validations from the token cache.
+     * A cache hit skips the signature check and user lookup but not the revocation checks.
      */
-    public Mono<User> validateToken(String token) {
-        try {
-            if (!jwtTokenService.validateTokenFormat(token)) {
-                return Mono.error(new RuntimeException("Invalid token format"));
+    public Mono<UserIdentity> validateAccessToken(String token) {
+        TokenValidationCache.Validation cached = tokenValidationCache.get(token);
+        if (cached != null) {
+            if (!isStillValid(cached)) {
+                tokenValidationCache.evict(token);
+                return Mono.error(new RuntimeException("Invalid token"));
             }
+            return Mono.just(cached.user());
+        }
 
-            String email = jwtTokenService.extractUsername(token);
-            return userRepository.findByEmail(email)
-                    .switchIfEmpty(Mono.error(new RuntimeException("User not found")))
-                    .flatMap(user -> {
-                        if (!jwtTokenService.validateToken(token, user)) {
-                            return Mono.error(new RuntimeException("Invalid token"));
+        return Mono.fromCallable(() -> jwtTokenService.verify(token))
+                .flatMap(verified -> validateToken(verified)
+                        .doOnNext(user -> tokenValidationCache.put(token, verified, user)));
+    }
+
+    /**
+     * Validate many access tokens at once, preserving input order.
+     * Signatures are checked in parallel and all user lookups go out as a single query.
+     * A null, malformed or otherwise unusable token only invalidates its own slot.
+     */
+    public Mono<List<Optional<UserIdentity>>> validateAccessTokens(List<String> tokens) {
+        // Indexed rather than fromIterable, which rejects null elements
+        return Flux.range(0, tokens.size())
+                .map(tokens::get)
+                .flatMapSequential(token -> Mono.fromCallable(() -> verifyForBatch(token))
+                        .subscribeOn(Schedulers.parallel()))
+                .collectList()
+                .flatMap(slots -> {
+                    Set<String> emails = new HashSet<>();
+                    if (!statelessValidation) {
+                        for (BatchSlot slot : slots) {
+                            if (slot.cached() == null && slot.verified() != null && slot.verified().subject() != null
+                                    && !slot.verified().isRefreshToken()) {
+                                emails.add(slot.verified().subject());
+                            }
                         }
-                        return Mono.just(user);
-                    });
-        } catch (Exception e) {
-            return Mono.error(new RuntimeException("Token validation failed: " + e.getMessage()));
+                    }
+
+                    Mono<Map<String, UserIdentity>> usersByEmail = emails.isEmpty()
+                            ? Mono.just(Map.of())
+                            : userCache.findIdentitiesByEmail(emails);
+
+                    return usersByEmail.map(users -> slots.stream()
+                            .map(slot -> resolveBatchSlot(slot, users))
+                            .toList());
+                });
+    }
+
+    /**
+     * Resolve the user behind an already verified access token
+     */
+    public Mono<UserIdentity> validateToken(VerifiedToken token) {
+        // Refresh tokens carry no security version and outlive logout; they never authenticate
+        if (token.isRefreshToken() || accessTokenDenylist.isRevoked(token.jti())) {
+            return Mono.error(new RuntimeException("Invalid token"));
+        }
+        if (statelessValidation) {
+            return validateFromClaims(token);
         }
+        return userCache.findIdentityByEmail(token.subject())
+                .switchIfEmpty(Mono.error(new RuntimeException("User not found")))
+                .flatMap(user -> {
+                    if (!isCurrentFor(token, user)) {
+                        return Mono.error(new RuntimeException("Invalid token"));
+                    }
+                    return Mono.just(user);
+                });
+    }
+
+    /**
+     * Revoke the presented access token and, if given, the refresh token family it came with
+     */
+    public Mono<Void> logout(String accessToken, String refreshToken) {
+        return Mono.fromCallable(() -> jwtTokenService.verify(accessToken))
+                .flatMap(verified -> {
+                    tokenValidationCache.evict(accessToken);
+                    Mono<Void> revokeAccess = accessTokenDenylist.revoke(verified);
+                    if (refreshToken == null || refreshToken.isEmpty()) {
+                        return revokeAccess;
+                    }
+                    return revokeAccess.then(Mono.fromCallable(() -> jwtTokenService.verify(refreshToken))
+                            .filter(refresh -> refresh.isRefreshToken() && refresh.userId() != null
+                                    && refresh.userId().equals(verified.userId()))
+                            .flatMap(refreshTokenStore::revokeFamily));
+                });
+    }
+
+    /**
+     * Revoke every session of the token's owner: all access tokens via the security
+     * version, all refresh token families via the family store
+     */
+    public Mono<Void> logoutAll(String accessToken) {
+        return validateAccessToken(accessToken)
+                .flatMap(user -> userRepository.findById(user.id()))
+                .switchIfEmpty(Mono.error(new RuntimeException("User not found")))
+                .flatMap(user -> {
+                    user.bumpSecurityVersion();
+                    return userRepository.save(user);
+                })
+                .doOnNext(this::onSecurityChange)
+                .flatMap(user -> refreshTokenStore.revokeAllForUser(user.getId()));
     }
 
     /**
      * Get user profile by ID
      */
     public Mono<User> getUserProfile(Long userId) {
-        return userRepository.findById(userId)
+        return userCache.findById(userId)
                 .switchIfEmpty(Mono.error(new RuntimeException("User not found")));
     }
 
+    /**
+     * Get many user profiles at once, keyed by id; unknown ids are simply absent
+     */
+    public Mono<Map<Long, UserSummary>> getUserProfiles(Collection<Long> userIds) {
+        return userCache.findSummariesById(userIds);
+    }
+
     /**
      * Update user verification status
      */
@@ -120,33 +260,157 @@ public class AuthService {
                 .switchIfEmpty(Mono.error(new RuntimeException("User not found")))
                 .flatMap(user -> {
                     user.setIsVerified(true);
-                    user.setUpdatedAt(LocalDateTime.now());
+                    user.bumpSecurityVersion();
                     return userRepository.save(user);
-                });
+                })
+                .doOnNext(this::onSecurityChange);
     }
 
     /**
-     * Check if user exists by email or phone number
+     * Deactivate a user account and invalidate its outstanding access tokens
      */
-    private Mono<Boolean> checkUserExists(String email, String phoneNumber) {
-        return userRepository.existsByEmail(email)
-                .flatMap(emailExists -> {
-                    if (emailExists) {
-                        return Mono.just(true);
-                    }
-                    return userRepository.existsByPhoneNumber(phoneNumber);
-                });
+    public Mono<User> deactivateUser(Long userId) {
+        return userRepository.findById(userId)
+                .switchIfEmpty(Mono.error(new RuntimeException("User not found")))
+                .flatMap(user -> {
+                    user.setIsActive(false);
+                    user.bumpSecurityVersion();
+                    return userRepository.save(user);
+                })
+                .doOnNext(this::onSecurityChange)
+                .flatMap(user -> refreshTokenStore.revokeAllForUser(user.getId()).thenReturn(user));
+    }
+
+    /**
+     * Check that an access token was issued to this user at its current security version.
+     * The identity may come from a lagging replica, so a version bump recorded locally
+     * also rejects the token before the replica catches up.
+     */
+    private boolean isCurrentFor(VerifiedToken token, UserIdentity user) {
+        int userVersion = user.securityVersion() == null ? 0 : user.securityVersion();
+        return token.belongsTo(user) && !token.isExpired() && Boolean.TRUE.equals(user.isActive())
+                && token.securityVersion() == userVersion
+                && token.securityVersion() >= securityVersionService.currentVersion(user.id());
+    }
+
+    /**
+     * Re-check a cached validation against state that other nodes can change without
+     * touching this node's cache: the denylist, the security version table and expiry.
+     * Deactivation bumps the security version, so it is caught here too.
+     */
+    private boolean isStillValid(TokenValidationCache.Validation cached) {
+        VerifiedToken token = cached.token();
+        return !token.isExpired()
+                && !accessTokenDenylist.isRevoked(token.jti())
+                && Boolean.TRUE.equals(cached.user().isActive())
+                && token.securityVersion() >= securityVersionService.currentVersion(token.userId());
+    }
+
+    /**
+     * Propagate a security-relevant user change to in-memory validation state
+     */
+    private void onSecurityChange(User user) {
+        securityVersionService.record(user);
+        userCache.seed(user);
+        tokenValidationCache.evictUser(user.getId());
+        credentialCache.evictUser(user.getId());
+        donorIndex.update(user);
+    }
+
+    /**
+     * Answer validation from verified claims, checking only the security version table
+     */
+    private Mono<UserIdentity> validateFromClaims(VerifiedToken token) {
+        UserIdentity user = identityFromClaims(token);
+        if (user == null) {
+            return Mono.error(new RuntimeException("Invalid token"));
+        }
+        return Mono.just(user);
+    }
+
+    /**
+     * Build a user view from verified claims; null if the security version is stale or the
+     * claims do not describe a user this service knows (no subject, unknown role).
+     * Deactivation bumps the security version, so a current token implies an active user.
+     */
+    private UserIdentity identityFromClaims(VerifiedToken token) {
+        if (token.isRefreshToken() || token.subject() == null || token.role() == null
+                || !securityVersionService.isCurrent(token)) {
+            return null;
+        }
+        Role role;
+        try {
+            role = Role.valueOf(token.role());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new UserIdentity(token.userId(), token.subject(), role,
+                true, token.isVerified(), token.securityVersion());
+    }
+
+    /**
+     * Per-token state while validating a batch
+     */
+    private record BatchSlot(String token, UserIdentity cached, VerifiedToken verified) {}
+
+    private BatchSlot verifyForBatch(String token) {
+        if (token == null || token.isBlank()) {
+            return new BatchSlot(token, null, null);
+        }
+        TokenValidationCache.Validation cached = tokenValidationCache.get(token);
+        if (cached != null) {
+            if (isStillValid(cached)) {
+                return new BatchSlot(token, cached.user(), null);
+            }
+            tokenValidationCache.evict(token);
+            return new BatchSlot(token, null, null);
+        }
+        try {
+            return new BatchSlot(token, null, jwtTokenService.verify(token));
+        } catch (RuntimeException e) {
+            return new BatchSlot(token, null, null);
+        }
+    }
+
+    private Optional<UserIdentity> resolveBatchSlot(BatchSlot slot, Map<String, UserIdentity> usersByEmail) {
+        if (slot.cached() != null) {
+            return Optional.of(slot.cached());
+        }
+        VerifiedToken verified = slot.verified();
+        if (verified == null || verified.isRefreshToken()) {
+            return Optional.empty();
+        }
+
+        if (accessTokenDenylist.isRevoked(verified.jti())) {
+            return Optional.empty();
+        }
+        UserIdentity user = statelessValidation ? identityFromClaims(verified) : usersByEmail.get(verified.subject());
+        if (user == null || !isCurrentFor(verified, user)) {
+            return Optional.empty();
+        }
+        tokenValidationCache.put(slot.token(), verified, user);
+        return Optional.of(user);
+    }
+
+    /**
+     * Insert a new user; a concurrent registration with the same email or phone number
+     * loses on the unique constraints and maps to USER_EXISTS
+     */
+    private Mono<User> insertUser(User user) {
+        return userRepository.save(user)
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> new RuntimeException("User already exists with this email or phone number"));
     }
 
     /**
      * Create new user from registration request
      */
     private Mono<User> createNewUser(RegisterRequest request) {
-        return Mono.fromCallable(() -> {
+        return passwordHashingExecutor.encode(() -> passwordEncoder.encode(request.getPassword())).map(passwordHash -> {
             User user = new User();
             user.setEmail(request.getEmail());
             user.setPhoneNumber(request.getPhoneNumber());
-            user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+            user.setPasswordHash(passwordHash);
             user.setFirstName(request.getFirstName());
             user.setLastName(request.getLastName());
             user.setRole(request.getRole());
@@ -167,7 +431,16 @@ public class AuthService {
      * Validate password during login
      */
     private Mono<User> validatePassword(String rawPassword, User user) {
-        return Mono.fromCallable(() -> passwordEncoder.matches(rawPassword, user.getPasswordHash()))
+        String passwordHash = user.getPasswordHash();
+        Mono<Boolean> check = credentialCache.isVerified(user.getId(), user.getEmail(), rawPassword, passwordHash)
+                ? Mono.just(true)
+                : passwordHashingExecutor.matches(() -> passwordEncoder.matches(rawPassword, passwordHash))
+                        .doOnNext(matches -> {
+                            if (matches) {
+                                credentialCache.put(user.getId(), user.getEmail(), rawPassword, passwordHash);
+                            }
+                        });
+        return check
                 .flatMap(matches -> {
                     if (!matches) {
                         log.warn("Login failed: invalid password for userId={}", user.getId());
@@ -177,26 +450,53 @@ public class AuthService {
                         log.warn("Login blocked: account deactivated for userId={}", user.getId());
                         return Mono.error(new RuntimeException("Account is deactivated"));
                     }
+                    rehashIfOutdated(rawPassword, user);
                     return Mono.just(user);
                 });
     }
 
+    /**
+     * Upgrade a hash made with outdated parameters in the background after a successful login
+     */
+    private void rehashIfOutdated(String rawPassword, User user) {
+        String oldHash = user.getPasswordHash();
+        if (!passwordEncoder.upgradeEncoding(oldHash)) {
+            return;
+        }
+        passwordHashingExecutor.encode(() -> passwordEncoder.encode(rawPassword))
+                .flatMap(newHash -> userRepository.updatePasswordHash(user.getId(), oldHash, newHash)
+                                .doOnNext(updated -> userCache.invalidate(user)))
+                .subscribe(
+                        updated -> log.debug("Password hash upgraded for userId={} (rows={})", user.getId(), updated),
+                        error -> log.debug("Password hash upgrade skipped for userId={}: {}", user.getId(), error.getMessage())
+                );
+    }
+
     /**
      * Update last login and generate auth response
      */
     private Mono<AuthResponse> updateLastLoginAndGenerateResponse(User user) {
+        // Written behind in batches; the response does not wait on the database
         user.updateLastLogin();
-        return userRepository.save(user)
-                .flatMap(this::generateAuthResponse);
+        lastLoginRecorder.record(user.getId(), user.getLastLogin());
+        return startSession(user);
+    }
+
+    /**
+     * Start a new refresh token family and issue the first token pair
+     */
+    private Mono<AuthResponse> startSession(User user) {
+        return refreshTokenStore.startFamily(user.getId())
+                .flatMap(grant -> generateAuthResponse(user, grant));
     }
 
     /**
      * Generate authentication response with tokens and user info
      */
-    private Mono<AuthResponse> generateAuthResponse(User user) {
+    private Mono<AuthResponse> generateAuthResponse(User user, RefreshGrant grant) {
         return Mono.fromCallable(() -> {
             String accessToken = jwtTokenService.generateToken(user);
-            String refreshToken = jwtTokenService.generateRefreshToken(user);
+            String refreshToken = jwtTokenService.generateRefreshToken(user, grant);
             Long expiresIn = jwtTokenService.getExpirationTime();
 
             AuthResponse.UserInfo userInfo = new AuthResponse.UserInfo(
@@ -0,0 +1,137 @@
+package com.vitasync.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of successful password checks so repeat logins skip BCrypt.
+ * Keys are an HMAC over email, password and the stored hash under a per-process
+ * random key, so no password material is kept and a password change misses by
+ * construction. Entries are dropped on deactivation and other security changes.
+ */
+@Service
+public class CredentialCache {
+
+    private final boolean enabled;
+    private final Cache<ByteBuffer, Long> cache;
+    // Secondary index so evicting one user does not scan the whole cache
+    private final Map<Long, Set<ByteBuffer>> keysByUser = new ConcurrentHashMap<>();
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final Counter savedHashes;
+    private final Counter savedSeconds;
+    private final ThreadLocal<Mac> mac;
+
+    public CredentialCache(@Value("${auth.credential-cache.enabled:false}") boolean enabled,
+                           @Value("${auth.credential-cache.max-size:10000}") long maxSize,
+                           @Value("${auth.credential-cache.ttl:10m}") Duration ttl,
+                           PasswordHashingExecutor passwordHashingExecutor,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .removalListener((ByteBuffer key, Long userId, RemovalCause cause) -> {
+                    if (key != null && userId != null && cause != RemovalCause.REPLACED) {
+                        unindex(userId, key);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.credentials");
+        this.savedHashes = Counter.builder("auth.credential-cache.saved.hashes")
+                .register(meterRegistry);
+        this.savedSeconds = Counter.builder("auth.credential-cache.saved.cpu")
+                .baseUnit("seconds")
+                .description("Estimated password hashing time avoided by cache hits")
+                .register(meterRegistry);
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKeySpec key = new SecretKeySpec(secret, "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance("HmacSHA256");
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        });
+    }
+
+    /**
+     * Check whether these credentials were verified recently for this user
+     */
+    public boolean isVerified(Long userId, String email, String rawPassword, String passwordHash) {
+        if (!enabled || userId == null) {
+            return false;
+        }
+        Long cachedUserId = cache.getIfPresent(key(email, rawPassword, passwordHash));
+        if (!userId.equals(cachedUserId)) {
+            return false;
+        }
+        savedHashes.increment();
+        savedSeconds.increment(passwordHashingExecutor.meanMatchesSeconds());
+        return true;
+    }
+
+    /**
+     * Remember a successful password check
+     */
+    public void put(Long userId, String email, String rawPassword, String passwordHash) {
+        if (enabled && userId != null) {
+            ByteBuffer key = key(email, rawPassword, passwordHash);
+            keysByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(key);
+            cache.put(key, userId);
+        }
+    }
+
+    /**
+     * Drop every cached credential of a user
+     */
+    public void evictUser(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        Set<ByteBuffer> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    private void unindex(Long userId, ByteBuffer key) {
+        keysByUser.computeIfPresent(userId, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private ByteBuffer key(String email, String rawPassword, String passwordHash) {
+        Mac hmac = mac.get();
+        hmac.update(email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        hmac.update(rawPassword.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        hmac.update(passwordHash.getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.wrap(hmac.doFinal());
+    }
+}
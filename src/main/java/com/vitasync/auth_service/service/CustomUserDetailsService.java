@@ -1,6 +1,8 @@
 package com.vitasync.auth_service.service;
 
+import com.vitasync.auth_service.model.User;
 import com.vitasync.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -8,21 +10,24 @@ import reactor.core.publisher.Mono;
 
 /**
  * Custom Reactive UserDetailsService implementation for VitaSync
- * Loads user details from database for authentication
+ * Loads user details from database for authentication; concurrent loads of the same
+ * email share one query
  */
 @Service
 public class CustomUserDetailsService implements ReactiveUserDetailsService {
 
     private final UserRepository userRepository;
+    private final SingleFlight<String, User> userLoads;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.userLoads = new SingleFlight<>("user-details-by-email", meterRegistry);
     }
 
     @Override
     public Mono<UserDetails> findByUsername(String email) {
-        return userRepository.findByEmail(email)
-                .cast(UserDetails.class)
+        return userLoads.execute(email, () -> userRepository.findByEmail(email))
+                .map(user -> (UserDetails) user.copy(true))
                 .switchIfEmpty(Mono.error(new RuntimeException("User not found with email: " + email)));
     }
 
@@ -0,0 +1,481 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.BloodType;
+import com.vitasync.auth_service.model.DonorLocation;
+import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.vitasync.auth_service.config.ReadReplicaRoutingConnectionFactory.readOnly;
+
+/**
+ * In-memory spatial index of active, verified donors.
+ * Donors are partitioned by {@link BloodType} and bucketed into fixed-size lat/lng grid
+ * cells; each cell keeps its coordinates in primitive arrays so a query only runs
+ * the distance kernel over cells overlapping the search circle. The index is updated
+ * as users register, verify or deactivate locally and rebuilt periodically from the
+ * database to pick up changes made by other nodes. Local updates that land while a
+ * rebuild query is running are recorded and replayed onto the rebuilt snapshot, so the
+ * rebuild cannot roll them back to what the query read.
+ * Queries take a donor bitmask such as {@link BloodType#donorMask}; partitions outside
+ * the mask are skipped without touching their cells.
+ */
+@Service
+public class DonorIndex {
+    private static final Logger log = LoggerFactory.getLogger(DonorIndex.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+    private static final int PARTITIONS = BloodType.values().length + 1;
+    // Donors with a missing or unrecognised blood type; only matched by ANY_BLOOD_TYPE
+    private static final int UNKNOWN_PARTITION = PARTITIONS - 1;
+
+    /**
+     * Mask matching every partition, including donors without a recognised blood type
+     */
+    public static final int ANY_BLOOD_TYPE = -1;
+
+    private final UserRepository userRepository;
+    private final double cellSizeDeg;
+    private final int columns;
+    private final double maxRadiusKm;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Snapshot snapshot = new Snapshot();
+
+    // Local updates made while a reload query is running, guarded by the write lock
+    private final List<Update> updatesDuringReload = new ArrayList<>();
+    private int reloadsRunning;
+
+    /**
+     * A recorded local update; a null location removes the donor
+     */
+    private record Update(Long userId, DonorLocation location) {}
+
+    /**
+     * A donor within the search area, nearest first
+     */
+    public record Match(long userId, BloodType bloodType, double distanceKm) {}
+
+    public DonorIndex(UserRepository userRepository,
+                      @Value("${auth.donor-index.cell-size-deg:0.25}") double cellSizeDeg,
+                      @Value("${auth.donor-index.max-radius-km:500}") double maxRadiusKm) {
+        this.userRepository = userRepository;
+        this.cellSizeDeg = cellSizeDeg;
+        this.columns = (int) Math.ceil(360.0 / cellSizeDeg);
+        this.maxRadiusKm = maxRadiusKm;
+    }
+
+    /**
+     * Rebuild from the database at startup and on the reload interval
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.donor-index.reload-ms:300000}",
+               initialDelayString = "${auth.donor-index.reload-ms:300000}")
+    public void reload() {
+        beginReload();
+        readOnly(userRepository.findDonorLocations())
+                .collectList()
+                .subscribe(
+                        donors -> {
+                            install(build(donors), true);
+                            log.info("Donor index rebuilt: {} donors", donors.size());
+                        },
+                        error -> {
+                            endReload();
+                            log.warn("Donor index rebuild failed: {}", error.getMessage());
+                        }
+                );
+    }
+
+    /**
+     * Replace the whole index with the given donors
+     */
+    public void replaceAll(Collection<DonorLocation> donors) {
+        install(build(donors), false);
+    }
+
+    private Snapshot build(Collection<DonorLocation> donors) {
+        Snapshot rebuilt = new Snapshot();
+        for (DonorLocation donor : donors) {
+            rebuilt.put(donor);
+        }
+        return rebuilt;
+    }
+
+    private void beginReload() {
+        lock.writeLock().lock();
+        try {
+            reloadsRunning++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void endReload() {
+        lock.writeLock().lock();
+        try {
+            if (--reloadsRunning == 0) {
+                updatesDuringReload.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Swap in a rebuilt snapshot; a reload first replays the local updates made since its
+     * query started. With overlapping reloads the log is kept until the last one finishes,
+     * so an earlier update may be replayed again, which is harmless.
+     */
+    private void install(Snapshot rebuilt, boolean fromReload) {
+        lock.writeLock().lock();
+        try {
+            if (fromReload) {
+                for (Update update : updatesDuringReload) {
+                    apply(rebuilt, update.userId(), update.location());
+                }
+                if (--reloadsRunning == 0) {
+                    updatesDuringReload.clear();
+                }
+            }
+            snapshot = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add, move or drop a user after a local write, depending on whether it is an eligible donor
+     */
+    public void update(User user) {
+        if (user.getId() == null) {
+            return;
+        }
+        boolean eligible = user.isDonor()
+                && Boolean.TRUE.equals(user.getIsActive())
+                && Boolean.TRUE.equals(user.getIsVerified())
+                && user.getLocationLat() != null && user.getLocationLng() != null;
+        if (eligible) {
+            put(DonorLocation.of(user));
+        } else {
+            remove(user.getId());
+        }
+    }
+
+    /**
+     * Add or move a donor
+     */
+    public void put(DonorLocation donor) {
+        lock.writeLock().lock();
+        try {
+            apply(snapshot, donor.id(), donor);
+            if (reloadsRunning > 0) {
+                updatesDuringReload.add(new Update(donor.id(), donor));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop a donor if indexed
+     */
+    public void remove(Long userId) {
+        lock.writeLock().lock();
+        try {
+            apply(snapshot, userId, null);
+            if (reloadsRunning > 0) {
+                updatesDuringReload.add(new Update(userId, null));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Snapshot target, Long userId, DonorLocation location) {
+        target.remove(userId);
+        if (location != null) {
+            target.put(location);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return snapshot.placements.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Donors within {@code radiusKm} whose blood type is in {@code donorMask}, nearest first
+     */
+    public List<Match> findWithinRadius(double lat, double lng, double radiusKm, int donorMask) {
+        return search(lat, lng, radiusKm, donorMask, Integer.MAX_VALUE, -1.0, 0L);
+    }
+
+    /**
+     * Up to {@code limit} nearest donors within {@code radiusKm} whose blood type is in {@code donorMask}
+     */
+    public List<Match> findWithinRadius(double lat, double lng, double radiusKm, int donorMask, int limit) {
+        return findWithinRadius(lat, lng, radiusKm, donorMask, limit, null, null);
+    }
+
+    /**
+     * The next {@code limit} donors after the (distance, id) of the previous page's last match.
+     * Pass null for the cursor to start from the nearest donor.
+     */
+    public List<Match> findWithinRadius(double lat, double lng, double radiusKm, int donorMask, int limit,
+                                        Double afterDistanceKm, Long afterId) {
+        return search(lat, lng, Math.min(radiusKm, maxRadiusKm), donorMask, limit,
+                afterDistanceKm == null ? -1.0 : afterDistanceKm, afterId == null ? 0L : afterId);
+    }
+
+    /**
+     * Up to {@code k} nearest donors within the configured maximum radius.
+     * The search radius doubles from one cell until k donors are found; any closer donor
+     * would lie inside the same radius, so the result is exact.
+     */
+    public List<Match> findNearest(double lat, double lng, int k, int donorMask) {
+        double radiusKm = Math.min(cellSizeDeg * KM_PER_DEGREE, maxRadiusKm);
+        while (true) {
+            List<Match> matches = search(lat, lng, radiusKm, donorMask, k, -1.0, 0L);
+            if (matches.size() >= k || radiusKm >= maxRadiusKm) {
+                return matches;
+            }
+            radiusKm = Math.min(radiusKm * 2, maxRadiusKm);
+        }
+    }
+
+    private List<Match> search(double lat, double lng, double radiusKm, int donorMask, int limit,
+                               double afterDistanceKm, long afterId) {
+        double qLat = Math.toRadians(lat);
+        double qLng = Math.toRadians(lng);
+        double qCos = Math.cos(qLat);
+        // Haversine "a" threshold: comparing a directly avoids asin/acos per candidate
+        double halfAngle = Math.min(radiusKm / EARTH_RADIUS_KM, Math.PI) / 2;
+        double maxA = Math.sin(halfAngle) * Math.sin(halfAngle);
+
+        double dLatDeg = radiusKm / KM_PER_DEGREE;
+        int rowMin = row(Math.max(-90, lat - dLatDeg));
+        int rowMax = row(Math.min(90, lat + dLatDeg));
+        double poleward = Math.min(90, Math.abs(lat) + dLatDeg);
+        double dLngDeg = poleward >= 89.999 ? 180 : dLatDeg / Math.cos(Math.toRadians(poleward));
+        // Unwrapped column range; cells are looked up modulo the row width to cross the antimeridian
+        int colMin = (int) Math.floor((lng - dLngDeg + 180) / cellSizeDeg);
+        int colMax = (int) Math.floor((lng + dLngDeg + 180) / cellSizeDeg);
+        int colCount = dLngDeg >= 180 ? columns : Math.min(columns, colMax - colMin + 1);
+
+        Collector collector = new Collector(limit, afterDistanceKm, afterId);
+        lock.readLock().lock();
+        try {
+            for (int partition = 0; partition < PARTITIONS; partition++) {
+                Map<Long, Cell> cells = snapshot.grids[partition];
+                if ((donorMask & (1 << partition)) == 0 || cells.isEmpty()) {
+                    continue;
+                }
+                for (int r = rowMin; r <= rowMax; r++) {
+                    for (int c = 0; c < colCount; c++) {
+                        Cell cell = cells.get(cellKey(r, Math.floorMod(colMin + c, columns)));
+                        if (cell != null) {
+                            cell.collect(partition, qLat, qLng, qCos, maxA, collector);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return collector.results();
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor((lat + 90) / cellSizeDeg);
+    }
+
+    private int column(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180) / cellSizeDeg), columns);
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    private static int partition(String bloodType) {
+        BloodType type = BloodType.fromCode(bloodType);
+        return type == null ? UNKNOWN_PARTITION : type.ordinal();
+    }
+
+    /**
+     * Index contents; only mutated under the write lock
+     */
+    private final class Snapshot {
+        @SuppressWarnings("unchecked")
+        private final Map<Long, Cell>[] grids = new Map[PARTITIONS];
+        private final Map<Long, Placement> placements = new HashMap<>();
+
+        Snapshot() {
+            for (int i = 0; i < PARTITIONS; i++) {
+                grids[i] = new HashMap<>();
+            }
+        }
+
+        void put(DonorLocation donor) {
+            if (donor.id() == null || donor.locationLat() == null || donor.locationLng() == null) {
+                return;
+            }
+            int partition = partition(donor.bloodType());
+            long key = cellKey(row(donor.locationLat()), column(donor.locationLng()));
+            grids[partition].computeIfAbsent(key, k -> new Cell())
+                    .add(donor.id(), Math.toRadians(donor.locationLat()), Math.toRadians(donor.locationLng()));
+            placements.put(donor.id(), new Placement(partition, key));
+        }
+
+        void remove(Long userId) {
+            Placement placement = placements.remove(userId);
+            if (placement == null) {
+                return;
+            }
+            Map<Long, Cell> cells = grids[placement.partition()];
+            Cell cell = cells.get(placement.cellKey());
+            cell.remove(userId);
+            if (cell.size == 0) {
+                cells.remove(placement.cellKey());
+            }
+        }
+    }
+
+    private record Placement(int partition, long cellKey) {}
+
+    /**
+     * Donors in one grid cell as parallel primitive arrays (radians, with cos(lat) precomputed)
+     */
+    private static final class Cell {
+        private long[] ids = new long[4];
+        private double[] lat = new double[4];
+        private double[] lng = new double[4];
+        private double[] cosLat = new double[4];
+        private int size;
+
+        void add(long id, double latRad, double lngRad) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                lat = Arrays.copyOf(lat, capacity);
+                lng = Arrays.copyOf(lng, capacity);
+                cosLat = Arrays.copyOf(cosLat, capacity);
+            }
+            ids[size] = id;
+            lat[size] = latRad;
+            lng[size] = lngRad;
+            cosLat[size] = Math.cos(latRad);
+            size++;
+        }
+
+        void remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    int last = --size;
+                    ids[i] = ids[last];
+                    lat[i] = lat[last];
+                    lng[i] = lng[last];
+                    cosLat[i] = cosLat[last];
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Distance kernel: a straight loop over the arrays with no allocation or calls besides sin
+         */
+        void collect(int partition, double qLat, double qLng, double qCos, double maxA, Collector collector) {
+            for (int i = 0; i < size; i++) {
+                double sLat = Math.sin((lat[i] - qLat) * 0.5);
+                double sLng = Math.sin((lng[i] - qLng) * 0.5);
+                double a = sLat * sLat + qCos * cosLat[i] * sLng * sLng;
+                if (a <= maxA) {
+                    collector.accept(ids[i], partition, a);
+                }
+            }
+        }
+    }
+
+    private record Candidate(long id, int partition, double a) {}
+
+    // Nearest first, ties broken by id so pages continue from a stable (distance, id) cursor
+    private static final Comparator<Candidate> NEAREST_FIRST =
+            Comparator.comparingDouble(Candidate::a).thenComparingLong(Candidate::id);
+
+    private static double distanceKm(double a) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    /**
+     * Gathers matches after the cursor, keeping only the nearest {@code limit} in a bounded max-heap
+     */
+    private static final class Collector {
+        private final int limit;
+        private final double afterDistanceKm;
+        private final long afterId;
+        private final PriorityQueue<Candidate> heap;
+        private final List<Candidate> all;
+
+        Collector(int limit, double afterDistanceKm, long afterId) {
+            this.limit = limit;
+            this.afterDistanceKm = afterDistanceKm;
+            this.afterId = afterId;
+            boolean bounded = limit != Integer.MAX_VALUE;
+            this.heap = bounded ? new PriorityQueue<>(NEAREST_FIRST.reversed()) : null;
+            this.all = bounded ? null : new ArrayList<>();
+        }
+
+        void accept(long id, int partition, double a) {
+            if (afterDistanceKm >= 0) {
+                // Compared in km, exactly as returned, so a cursor taken from a result skips that result
+                double distanceKm = distanceKm(a);
+                if (distanceKm < afterDistanceKm || (distanceKm == afterDistanceKm && id <= afterId)) {
+                    return;
+                }
+            }
+            Candidate candidate = new Candidate(id, partition, a);
+            if (heap == null) {
+                all.add(candidate);
+            } else if (heap.size() < limit) {
+                heap.add(candidate);
+            } else if (NEAREST_FIRST.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        List<Match> results() {
+            List<Candidate> matches = heap == null ? all : new ArrayList<>(heap);
+            matches.sort(NEAREST_FIRST);
+            List<Match> results = new ArrayList<>(matches.size());
+            for (Candidate match : matches) {
+                double distanceKm = distanceKm(match.a());
+                BloodType bloodType = match.partition() == UNKNOWN_PARTITION ? null : BloodType.ofOrdinal(match.partition());
+                results.add(new Match(match.id(), bloodType, distanceKm));
+            }
+            return results;
+        }
+    }
+}
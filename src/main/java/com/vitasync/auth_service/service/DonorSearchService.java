@@ -0,0 +1,133 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.BloodType;
+import com.vitasync.auth_service.model.DonorMatch;
+import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.vitasync.auth_service.config.ReadReplicaRoutingConnectionFactory.readOnly;
+
+/**
+ * Compatible-donor search.
+ * Matching ranks donors for a recipient from the in-memory {@link DonorIndex} once it is
+ * loaded, and only goes to the database to fetch contact details for the chosen donors.
+ * The database-side search serves deployments that do not hold the donor directory in
+ * memory. Both stream pages in (distance, id) order, and the next page starts after the
+ * last row's (distance, id).
+ */
+@Service
+public class DonorSearchService {
+
+    private static final double KM_PER_DEGREE = Math.PI * 6371.0 / 180.0;
+
+    private final UserRepository userRepository;
+    private final DonorIndex donorIndex;
+
+    @Value("${auth.donor-search.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${auth.donor-search.use-index:true}")
+    private boolean useIndex;
+
+    public DonorSearchService(UserRepository userRepository, DonorIndex donorIndex) {
+        this.userRepository = userRepository;
+        this.donorIndex = donorIndex;
+    }
+
+    /**
+     * Donors who can give the recipient the component, within the radius, nearest first.
+     * Pass null for the cursor to start from the nearest donor, or the last match's
+     * (distance, id) to continue after it.
+     */
+    public Flux<DonorMatch> matchDonors(BloodType recipient, BloodType.Component component,
+                                        double lat, double lng, double radiusKm, int limit,
+                                        Double afterDistanceKm, Long afterId) {
+        int donorMask = recipient.donorMask(component);
+        int pageSize = pageSize(limit);
+        if (!useIndex || donorIndex.size() == 0) {
+            return findCompatibleDonors(lat, lng, radiusKm, donorMask, pageSize, afterDistanceKm, afterId);
+        }
+
+        List<DonorIndex.Match> ranked = donorIndex.findWithinRadius(lat, lng, radiusKm, donorMask, pageSize,
+                afterDistanceKm, afterId);
+        if (ranked.isEmpty()) {
+            return Flux.empty();
+        }
+        Map<Long, Double> distances = new HashMap<>();
+        for (DonorIndex.Match match : ranked) {
+            distances.put(match.userId(), match.distanceKm());
+        }
+
+        // Details come back in arbitrary order; restore the index ranking and re-check
+        // eligibility in case the donor changed on another node since the last reload
+        return readOnly(userRepository.findAllById(distances.keySet()))
+                .filter(user -> isEligible(user, donorMask))
+                .collectMap(User::getId)
+                .flatMapIterable(users -> ranked.stream()
+                        .map(match -> users.get(match.userId()))
+                        .filter(user -> user != null)
+                        .map(user -> new DonorMatch(user.getId(), user.getFirstName(), user.getLastName(),
+                                user.getPhoneNumber(), user.getBloodType(), user.getOrganizationId(),
+                                distances.get(user.getId())))
+                        .toList());
+    }
+
+    /**
+     * One page of donors within the radius whose blood type is in {@code donorMask}, nearest first.
+     * Pass null for the cursor to start from the nearest donor.
+     */
+    public Flux<DonorMatch> findCompatibleDonors(double lat, double lng, double radiusKm,
+                                                 int donorMask, int pageSize,
+                                                 Double afterDistanceKm, Long afterId) {
+        List<String> bloodTypes = BloodType.codes(donorMask);
+        if (bloodTypes.isEmpty()) {
+            return Flux.empty();
+        }
+
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double minLat = Math.max(-90, lat - dLat);
+        double maxLat = Math.min(90, lat + dLat);
+
+        // Longitude span widens towards the poles; fall back to the full range near them
+        // or when the box would cross the antimeridian
+        double poleward = Math.max(Math.abs(minLat), Math.abs(maxLat));
+        double minLng = -180;
+        double maxLng = 180;
+        if (poleward < 89.999) {
+            double dLng = dLat / Math.cos(Math.toRadians(poleward));
+            if (lng - dLng >= -180 && lng + dLng <= 180) {
+                minLng = lng - dLng;
+                maxLng = lng + dLng;
+            }
+        }
+
+        return readOnly(userRepository.findCompatibleDonorsWithinRadius(lat, lng, radiusKm, bloodTypes,
+                minLat, maxLat, minLng, maxLng,
+                afterDistanceKm == null ? -1.0 : afterDistanceKm,
+                afterId == null ? 0L : afterId,
+                pageSize(pageSize)));
+    }
+
+    /**
+     * The number of donors a page holds for the requested limit
+     */
+    public int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    private static boolean isEligible(User user, int donorMask) {
+        BloodType bloodType = BloodType.fromCode(user.getBloodType());
+        return user.isDonor()
+                && Boolean.TRUE.equals(user.getIsActive())
+                && Boolean.TRUE.equals(user.getIsVerified())
+                && bloodType != null
+                && (donorMask & bloodType.bit()) != 0;
+    }
+}
@@ -0,0 +1,431 @@
+package com.vitasync.auth_service.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.vitasync.auth_service.model.User;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Purpose-built HS256 codec for the fixed VitaSync claim layout.
+ * Claims are written straight into per-thread byte buffers, the header is pre-encoded per key,
+ * and signatures are checked with the key ring's per-thread Mac in constant time.
+ * Output is a standard compact JWS, so jjwt and other libraries read it unchanged.
+ */
+@Component
+public class FastJwtCodec {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final byte[] BASE64URL_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final int[] BASE64URL_INDEX = new int[128];
+
+    private static final int MAX_TOKEN_LENGTH = 8192;
+    private static final int HS256_SIGNATURE_LENGTH = 32;
+
+    static {
+        Arrays.fill(BASE64URL_INDEX, -1);
+        for (int i = 0; i < BASE64URL_ALPHABET.length; i++) {
+            BASE64URL_INDEX[BASE64URL_ALPHABET[i]] = i;
+        }
+    }
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final JwtSigningKeys signingKeys;
+    private final Map<String, byte[]> encodedHeaders = new ConcurrentHashMap<>();
+    private final byte[] noKidHeader = encodeHeader(null);
+
+    public FastJwtCodec(JwtSigningKeys signingKeys) {
+        this.signingKeys = signingKeys;
+    }
+
+    /**
+     * Encode an access token with the same claims JwtTokenService puts in via jjwt
+     */
+    public String encodeAccessToken(User user, JwtSigningKeys.RingKey key, long issuedAtMs, long expiresAtMs) {
+        JsonSink json = BUFFERS.get().json.begin();
+        json.numberField("userId", user.getId());
+        json.stringField("email", user.getEmail());
+        json.stringField("role", user.getRole().name());
+        json.stringField("firstName", user.getFirstName());
+        json.stringField("lastName", user.getLastName());
+        json.booleanField("isVerified", user.getIsVerified());
+        json.numberField("sv", user.getSecurityVersion() == null ? 0 : user.getSecurityVersion());
+        json.stringField("jti", UUID.randomUUID().toString());
+        if (user.getBloodType() != null) {
+            json.stringField("bloodType", user.getBloodType());
+        }
+        if (user.getOrganizationId() != null) {
+            json.numberField("organizationId", user.getOrganizationId());
+        }
+        return sign(json, user.getEmail(), key, issuedAtMs, expiresAtMs);
+    }
+
+    /**
+     * Encode a refresh token
+     */
+    public String encodeRefreshToken(User user, RefreshGrant grant, JwtSigningKeys.RingKey key,
+                                     long issuedAtMs, long expiresAtMs) {
+        JsonSink json = BUFFERS.get().json.begin();
+        json.numberField("userId", user.getId());
+        json.stringField("tokenType", VerifiedToken.REFRESH_TYPE);
+        json.stringField("jti", grant.jti());
+        json.stringField("fid", grant.familyId());
+        return sign(json, user.getEmail(), key, issuedAtMs, expiresAtMs);
+    }
+
+    /**
+     * Verify an HS256 token and read the claims we use.
+     * Returns null for other algorithms so the caller can fall back to jjwt.
+     */
+    public VerifiedToken decode(String token) {
+        int length = token.length();
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (length > MAX_TOKEN_LENGTH || firstDot <= 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw invalid("Malformed token");
+        }
+
+        Buffers buffers = BUFFERS.get();
+        Header header = parseHeader(buffers.decoded, base64UrlDecode(token, 0, firstDot, buffers));
+        if (!SignatureAlgorithm.HS256.getValue().equals(header.alg())) {
+            return null;
+        }
+        JwtSigningKeys.RingKey key = signingKeys.find(header.kid());
+        if (key == null || key.getAlgorithm() != SignatureAlgorithm.HS256) {
+            throw invalid("Unknown signing key");
+        }
+
+        ByteSink signingInput = buffers.token.reset();
+        for (int i = 0; i < secondDot; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                throw invalid("Malformed token");
+            }
+            signingInput.put((byte) c);
+        }
+        computeMac(key, signingInput, buffers.mac);
+
+        int signatureLength = base64UrlDecode(token, secondDot + 1, length, buffers);
+        if (!constantTimeEquals(buffers.mac, buffers.decoded, signatureLength)) {
+            throw invalid("Signature mismatch");
+        }
+
+        int payloadLength = base64UrlDecode(token, firstDot + 1, secondDot, buffers);
+        return parsePayload(buffers.decoded, payloadLength);
+    }
+
+    private String sign(JsonSink json, String subject, JwtSigningKeys.RingKey key, long issuedAtMs, long expiresAtMs) {
+        json.stringField("sub", subject);
+        json.numberField("iat", issuedAtMs / 1000);
+        json.numberField("exp", expiresAtMs / 1000);
+        json.end();
+
+        Buffers buffers = BUFFERS.get();
+        ByteSink token = buffers.token.reset();
+        token.put(key.getKid() == null ? noKidHeader : encodedHeaders.computeIfAbsent(key.getKid(), FastJwtCodec::encodeHeader));
+        token.put((byte) '.');
+        base64UrlEncode(json.bytes, 0, json.length, token);
+        computeMac(key, token, buffers.mac);
+        token.put((byte) '.');
+        base64UrlEncode(buffers.mac, 0, HS256_SIGNATURE_LENGTH, token);
+        return new String(token.bytes, 0, token.length, StandardCharsets.US_ASCII);
+    }
+
+    private static void computeMac(JwtSigningKeys.RingKey key, ByteSink input, byte[] out) {
+        Mac mac = key.mac();
+        mac.update(input.bytes, 0, input.length);
+        try {
+            mac.doFinal(out, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean constantTimeEquals(byte[] expected, byte[] actual, int actualLength) {
+        int diff = actualLength ^ HS256_SIGNATURE_LENGTH;
+        for (int i = 0; i < HS256_SIGNATURE_LENGTH; i++) {
+            diff |= expected[i] ^ actual[i];
+        }
+        return diff == 0;
+    }
+
+    private record Header(String alg, String kid) {}
+
+    private static Header parseHeader(byte[] data, int length) {
+        String alg = null;
+        String kid = null;
+        try (JsonParser parser = JSON.createParser(data, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw invalid("Malformed header");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "alg" -> alg = parser.getText();
+                    case "kid" -> kid = parser.getText();
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw invalid("Malformed header");
+        }
+        return new Header(alg, kid);
+    }
+
+    private static VerifiedToken parsePayload(byte[] data, int length) {
+        String subject = null;
+        Long userId = null;
+        String role = null;
+        String tokenType = null;
+        Boolean isVerified = null;
+        int securityVersion = 0;
+        String jti = null;
+        String familyId = null;
+        long exp = -1;
+        try (JsonParser parser = JSON.createParser(data, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw invalid("Malformed payload");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (name) {
+                    case "sub" -> subject = parser.getText();
+                    case "userId" -> userId = parser.getLongValue();
+                    case "role" -> role = parser.getText();
+                    case "tokenType" -> tokenType = parser.getText();
+                    case "isVerified" -> isVerified = parser.getBooleanValue();
+                    case "sv" -> securityVersion = parser.getIntValue();
+                    case "jti" -> jti = parser.getText();
+                    case "fid" -> familyId = parser.getText();
+                    case "exp" -> exp = parser.getLongValue();
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw invalid("Malformed payload");
+        }
+
+        if (exp < 0) {
+            throw invalid("Missing expiration");
+        }
+        Date expiration = new Date(exp * 1000);
+        if (System.currentTimeMillis() > expiration.getTime()) {
+            throw invalid("Token expired");
+        }
+        return new VerifiedToken(subject, userId, role, tokenType, isVerified, securityVersion,
+                jti, familyId, expiration);
+    }
+
+    private static byte[] encodeHeader(String kid) {
+        JsonSink json = new JsonSink(64).begin();
+        json.stringField("alg", SignatureAlgorithm.HS256.getValue());
+        if (kid != null) {
+            json.stringField("kid", kid);
+        }
+        json.end();
+        ByteSink out = new ByteSink(128);
+        base64UrlEncode(json.bytes, 0, json.length, out);
+        return Arrays.copyOf(out.bytes, out.length);
+    }
+
+    private static void base64UrlEncode(byte[] src, int offset, int length, ByteSink out) {
+        out.ensure((length + 2) / 3 * 4);
+        int end = offset + length;
+        int i = offset;
+        for (; i + 3 <= end; i += 3) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            out.putUnchecked(BASE64URL_ALPHABET[bits >>> 18 & 0x3f]);
+            out.putUnchecked(BASE64URL_ALPHABET[bits >>> 12 & 0x3f]);
+            out.putUnchecked(BASE64URL_ALPHABET[bits >>> 6 & 0x3f]);
+            out.putUnchecked(BASE64URL_ALPHABET[bits & 0x3f]);
+        }
+        int remaining = end - i;
+        if (remaining == 1) {
+            int bits = (src[i] & 0xff) << 16;
+            out.putUnchecked(BASE64URL_ALPHABET[bits >>> 18 & 0x3f]);
+            out.putUnchecked(BASE64URL_ALPHABET[bits >>> 12 & 0x3f]);
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            out.putUnchecked(BASE64URL_ALPHABET[bits >>> 18 & 0x3f]);
+            out.putUnchecked(BASE64URL_ALPHABET[bits >>> 12 & 0x3f]);
+            out.putUnchecked(BASE64URL_ALPHABET[bits >>> 6 & 0x3f]);
+        }
+    }
+
+    /**
+     * Decode token[from, to) into buffers.decoded and return the decoded length
+     */
+    private static int base64UrlDecode(String token, int from, int to, Buffers buffers) {
+        int length = to - from;
+        if (length % 4 == 1) {
+            throw invalid("Malformed base64url");
+        }
+        byte[] out = buffers.decoded;
+        int bits = 0;
+        int bitCount = 0;
+        int written = 0;
+        for (int i = from; i < to; i++) {
+            char c = token.charAt(i);
+            int value = c < 128 ? BASE64URL_INDEX[c] : -1;
+            if (value < 0) {
+                throw invalid("Malformed base64url");
+            }
+            bits = bits << 6 | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[written++] = (byte) (bits >>> bitCount);
+            }
+        }
+        return written;
+    }
+
+    private static RuntimeException invalid(String reason) {
+        return new RuntimeException("Invalid token: " + reason);
+    }
+
+    private static final class Buffers {
+        final JsonSink json = new JsonSink(512);
+        final ByteSink token = new ByteSink(1024);
+        final byte[] mac = new byte[HS256_SIGNATURE_LENGTH];
+        // Large enough for any segment of a MAX_TOKEN_LENGTH token
+        final byte[] decoded = new byte[MAX_TOKEN_LENGTH];
+    }
+
+    /**
+     * Growable byte buffer reused across calls on the same thread
+     */
+    private static class ByteSink {
+        byte[] bytes;
+        int length;
+
+        ByteSink(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        ByteSink reset() {
+            length = 0;
+            return this;
+        }
+
+        void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        void put(byte b) {
+            ensure(1);
+            bytes[length++] = b;
+        }
+
+        void putUnchecked(byte b) {
+            bytes[length++] = b;
+        }
+
+        void put(byte[] src) {
+            ensure(src.length);
+            System.arraycopy(src, 0, bytes, length, src.length);
+            length += src.length;
+        }
+    }
+
+    /**
+     * Minimal JSON object writer for flat string/number/boolean claims
+     */
+    private static final class JsonSink extends ByteSink {
+        private boolean first;
+
+        JsonSink(int capacity) {
+            super(capacity);
+        }
+
+        JsonSink begin() {
+            reset();
+            first = true;
+            put((byte) '{');
+            return this;
+        }
+
+        void end() {
+            put((byte) '}');
+        }
+
+        void stringField(String name, String value) {
+            name(name);
+            string(value);
+        }
+
+        void numberField(String name, long value) {
+            name(name);
+            ascii(Long.toString(value));
+        }
+
+        void booleanField(String name, Boolean value) {
+            name(name);
+            ascii(value == null ? "null" : value.toString());
+        }
+
+        private void name(String name) {
+            if (!first) {
+                put((byte) ',');
+            }
+            first = false;
+            string(name);
+            put((byte) ':');
+        }
+
+        private void ascii(String s) {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                putUnchecked((byte) s.charAt(i));
+            }
+        }
+
+        private void string(String s) {
+            if (s == null) {
+                ascii("null");
+                return;
+            }
+            put((byte) '"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\');
+                    put((byte) c);
+                } else if (c < 0x20) {
+                    ascii(String.format("\\u%04x", (int) c));
+                } else if (c < 0x80) {
+                    put((byte) c);
+                } else {
+                    int end = i + 1;
+                    if (Character.isHighSurrogate(c) && end < s.length()) {
+                        end++;
+                    }
+                    put(s.substring(i, end).getBytes(StandardCharsets.UTF_8));
+                    i = end - 1;
+                }
+            }
+            put((byte) '"');
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.JwtSigningKey;
+import com.vitasync.auth_service.repository.JwtSigningKeyRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Key ring for JWT signing.
+ * One key signs new tokens; every other key in the ring only verifies, selected by the
+ * kid header. Keys are shared across nodes through the jwt_signing_keys table and a new
+ * key only starts signing after an activation delay, so every node (and every JWKS
+ * consumer) knows it before the first token carrying its kid shows up; the JWKS cache
+ * lifetime is derived from that delay for the same reason. A key stays in the ring for
+ * the retention period after a newer key replaced it, and the newest key of the configured
+ * algorithm is always kept, however old. Secrets are
+ * stored encrypted under jwt.keys.encryption-key, and scheduled rotation takes a database
+ * advisory lock so only one node publishes the next key.
+ */
+@Component
+public class JwtSigningKeys {
+    private static final Logger log = LoggerFactory.getLogger(JwtSigningKeys.class);
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // pg_try_advisory_xact_lock key serialising scheduled rotation across nodes
+    private static final long ROTATION_LOCK_ID = 0x6A77745F6B657973L;
+
+    private final JwtSigningKeyRepository keyRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final SigningKeyCipher cipher;
+
+    private final String jwtSecret;
+    private final String algorithmName;
+    private final String configuredKeyId;
+    private final String ecPrivateKey;
+    private final String ecPublicKey;
+    private final Duration activationDelay;
+    private final Duration retention;
+    private final Duration rotationInterval;
+    private final Duration reloadInterval;
+
+    private SignatureAlgorithm algorithm;
+    private RingKey bootstrapKey;
+    private LocalDateTime startedAt;
+
+    // Immutable snapshot, swapped atomically on reload
+    private volatile Ring ring;
+
+    /**
+     * A single key in the ring with its verification state prepared up front
+     */
+    public static final class RingKey {
+        private final String kid;
+        private final SignatureAlgorithm algorithm;
+        private final Key signingKey;
+        private final Key verificationKey;
+        private final LocalDateTime createdAt;
+        private final ThreadLocal<Mac> mac;
+
+        RingKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey, LocalDateTime createdAt) {
+            this.kid = kid;
+            this.algorithm = algorithm;
+            this.signingKey = signingKey;
+            this.verificationKey = verificationKey;
+            this.createdAt = createdAt;
+            this.mac = algorithm.isHmac() ? ThreadLocal.withInitial(() -> initMac(signingKey, algorithm)) : null;
+        }
+
+        public String getKid() {
+            return kid;
+        }
+
+        public SignatureAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public Key getSigningKey() {
+            return signingKey;
+        }
+
+        public Key getVerificationKey() {
+            return verificationKey;
+        }
+
+        /**
+         * Per-thread HMAC instance already initialised with this key; doFinal() resets it for reuse
+         */
+        public Mac mac() {
+            if (mac == null) {
+                throw new IllegalStateException("Key " + kid + " is not an HMAC key");
+            }
+            return mac.get();
+        }
+
+        private static Mac initMac(Key key, SignatureAlgorithm algorithm) {
+            try {
+                Mac instance = Mac.getInstance(algorithm.getJcaName());
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialise " + algorithm.getJcaName(), e);
+            }
+        }
+    }
+
+    private record Ring(RingKey active, Map<String, RingKey> byKid, List<RingKey> keys) {}
+
+    public JwtSigningKeys(JwtSigningKeyRepository keyRepository,
+                          TransactionalOperator transactionalOperator,
+                          @Value("${jwt.secret}") String jwtSecret,
+                          @Value("${jwt.signing.algorithm:HS256}") String algorithmName,
+                          @Value("${jwt.signing.key-id:}") String configuredKeyId,
+                          @Value("${jwt.signing.ec-private-key:}") String ecPrivateKey,
+                          @Value("${jwt.signing.ec-public-key:}") String ecPublicKey,
+                          @Value("${jwt.keys.activation-delay:2m}") Duration activationDelay,
+                          @Value("${jwt.keys.retention:8d}") Duration retention,
+                          @Value("${jwt.keys.rotation-interval:0s}") Duration rotationInterval,
+                          @Value("${jwt.keys.reload-ms:60000}") long reloadMs,
+                          @Value("${jwt.keys.encryption-key:}") String encryptionKey) {
+        this.keyRepository = keyRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.cipher = new SigningKeyCipher(encryptionKey);
+        this.jwtSecret = jwtSecret;
+        this.algorithmName = algorithmName;
+        this.configuredKeyId = configuredKeyId;
+        this.ecPrivateKey = ecPrivateKey;
+        this.ecPublicKey = ecPublicKey;
+        this.activationDelay = activationDelay;
+        this.retention = retention;
+        this.rotationInterval = rotationInterval;
+        this.reloadInterval = Duration.ofMillis(reloadMs);
+    }
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        this.algorithm = SignatureAlgorithm.forName(algorithmName);
+        if (algorithm != SignatureAlgorithm.HS256 && algorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithmName);
+        }
+        if (activationDelay.compareTo(reloadInterval) <= 0) {
+            // Peers and JWKS consumers would see tokens signed with a kid they have not loaded yet
+            throw new IllegalStateException("jwt.keys.activation-delay must be longer than jwt.keys.reload-ms");
+        }
+        if (rotationEnabled() && !cipher.isConfigured()) {
+            throw new IllegalStateException("jwt.keys.rotation-interval requires jwt.keys.encryption-key");
+        }
+        this.startedAt = LocalDateTime.now();
+        this.bootstrapKey = loadBootstrapKey();
+        install(List.of());
+        log.info("JWT signing with {} (kid={})", algorithm.getValue(), bootstrapKey.getKid());
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return ring.active().getAlgorithm();
+    }
+
+    public Key getSigningKey() {
+        return ring.active().getSigningKey();
+    }
+
+    /**
+     * Key id written into the JWS header; null when the configured HS256 secret runs without one
+     */
+    public String getKeyId() {
+        return ring.active().getKid();
+    }
+
+    /**
+     * The key currently signing new tokens
+     */
+    public RingKey activeKey() {
+        return ring.active();
+    }
+
+    /**
+     * Look up a verification key by kid; tokens without a kid map to the configured key
+     */
+    public RingKey find(String kid) {
+        return kid == null ? bootstrapKey : ring.byKid().get(kid);
+    }
+
+    /**
+     * Resolves the verification key from the token's kid header
+     */
+    public SigningKeyResolverAdapter verificationKeyResolver() {
+        return new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                RingKey key = find(header.getKeyId());
+                if (key == null || !key.getAlgorithm().getValue().equals(header.getAlgorithm())) {
+                    throw new SignatureException("Unknown signing key " + header.getKeyId());
+                }
+                return key.getVerificationKey();
+            }
+        };
+    }
+
+    /**
+     * Public keys in JWK Set format, including keys that are not signing yet
+     */
+    public Map<String, Object> jwkSet() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (RingKey key : ring.keys()) {
+            if (key.getVerificationKey() instanceof ECPublicKey publicKey) {
+                Map<String, Object> jwk = new LinkedHashMap<>(ecJwk(publicKey));
+                jwk.put("use", "sig");
+                jwk.put("alg", key.getAlgorithm().getValue());
+                jwk.put("kid", key.getKid());
+                jwks.add(jwk);
+            }
+        }
+        return Map.of("keys", jwks);
+    }
+
+    /**
+     * How long JWKS consumers may cache {@link #jwkSet()}: a consumer that fetched just before a
+     * key was published must refetch before that key starts signing, after this node has
+     * had up to one reload interval to pick it up
+     */
+    public Duration jwksMaxAge() {
+        Duration maxAge = activationDelay.minus(reloadInterval);
+        return maxAge.compareTo(Duration.ofHours(1)) > 0 ? Duration.ofHours(1) : maxAge;
+    }
+
+    /**
+     * Generate and publish a new signing key. It starts signing once the activation delay
+     * has passed; existing keys keep verifying until their retention ends.
+     */
+    public Mono<String> rotate() {
+        return Mono.fromCallable(() -> generateKey(LocalDateTime.now()))
+                .flatMap(record -> keyRepository.insert(record.getKid(), record.getAlgorithm(),
+                                record.getSecret(), record.getPublicKey(), record.getCreatedAt())
+                        .then(reload())
+                        .thenReturn(record.getKid()))
+                .doOnNext(kid -> log.info("Published signing key kid={}, active after {}", kid, activationDelay));
+    }
+
+    /**
+     * Reload the ring from the database and rotate when the active key is older than the interval
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.keys.reload-ms:60000}", initialDelayString = "${jwt.keys.reload-ms:60000}")
+    public void refresh() {
+        reload()
+                .then(Mono.defer(() -> rotationDue() ? rotateUnlessPeerRotated() : Mono.empty()))
+                .subscribe(
+                        unused -> {},
+                        error -> log.warn("Signing key ring refresh failed: {}", error.getMessage())
+                );
+    }
+
+    /**
+     * Load every key that was superseded less than the retention period ago. A key is
+     * superseded once its successor activates, so that is each key created after
+     * now - retention - activation delay, plus the newest key created before that (its
+     * successor activated within the period), plus the newest key of the configured
+     * algorithm, which has no successor to retire it.
+     */
+    private Mono<Void> reload() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention).minus(activationDelay);
+        return Flux.concat(
+                        keyRepository.findFirstByCreatedAtLessThanEqualOrderByCreatedAtDesc(cutoff),
+                        keyRepository.findFirstByAlgorithmOrderByCreatedAtDesc(algorithm.getValue()),
+                        keyRepository.findByCreatedAtAfterOrderByCreatedAtAsc(cutoff))
+                .distinct(JwtSigningKey::getKid)
+                .flatMap(record -> Mono.justOrEmpty(toRingKey(record)))
+                .collectList()
+                .doOnNext(this::install)
+                .then();
+    }
+
+    /**
+     * Publish a key under the rotation lock, skipping when another node holds the lock or
+     * has already published one within the rotation interval
+     */
+    private Mono<Void> rotateUnlessPeerRotated() {
+        LocalDateTime now = LocalDateTime.now();
+        return Mono.fromCallable(() -> generateKey(now))
+                .flatMap(record -> transactionalOperator.transactional(
+                                keyRepository.tryAdvisoryXactLock(ROTATION_LOCK_ID)
+                                        .filter(Boolean::booleanValue)
+                                        .flatMap(locked -> keyRepository.insertIfNoneCreatedAfter(record.getKid(),
+                                                record.getAlgorithm(), record.getSecret(), record.getPublicKey(),
+                                                record.getCreatedAt(), now.minus(rotationInterval))))
+                        .defaultIfEmpty(0)
+                        .flatMap(inserted -> reload().thenReturn(inserted))
+                        .filter(inserted -> inserted > 0)
+                        .doOnNext(inserted -> log.info("Published signing key kid={}, active after {}",
+                                record.getKid(), activationDelay)))
+                .then();
+    }
+
+    private boolean rotationEnabled() {
+        return !rotationInterval.isZero() && !rotationInterval.isNegative();
+    }
+
+    private boolean rotationDue() {
+        if (!rotationEnabled()) {
+            return false;
+        }
+        // The bootstrap key sorts first and has no creation time of its own; until a key is
+        // persisted, count the interval from this node's start
+        RingKey newest = ring.keys().get(ring.keys().size() - 1);
+        LocalDateTime newestCreatedAt = newest == bootstrapKey ? startedAt : newest.createdAt;
+        return newestCreatedAt.isBefore(LocalDateTime.now().minus(rotationInterval));
+    }
+
+    private void install(List<RingKey> persisted) {
+        List<RingKey> keys = new ArrayList<>();
+        keys.add(bootstrapKey);
+        keys.addAll(persisted);
+        keys.sort(Comparator.comparing((RingKey key) -> key.createdAt));
+
+        Map<String, RingKey> byKid = new HashMap<>();
+        RingKey active = bootstrapKey;
+        LocalDateTime activeBefore = LocalDateTime.now().minus(activationDelay);
+        for (RingKey key : keys) {
+            if (key.getKid() != null) {
+                byKid.put(key.getKid(), key);
+            }
+            if (key.getAlgorithm() == algorithm && key != bootstrapKey && !key.createdAt.isAfter(activeBefore)) {
+                active = key;
+            }
+        }
+        this.ring = new Ring(active, Map.copyOf(byKid), List.copyOf(keys));
+    }
+
+    private RingKey loadBootstrapKey() throws GeneralSecurityException {
+        // Always part of the ring so tokens signed before the first rotation keep verifying;
+        // the minimum timestamp only orders it before persisted keys
+        LocalDateTime epoch = LocalDateTime.MIN;
+        if (algorithm == SignatureAlgorithm.HS256) {
+            SecretKey hmacKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+            return new RingKey(configuredKeyId.isBlank() ? null : configuredKeyId, algorithm, hmacKey, hmacKey, epoch);
+        }
+
+        // A key pair generated per node would only verify the tokens that node signed
+        if (ecPrivateKey.isBlank() || ecPublicKey.isBlank()) {
+            throw new IllegalStateException("jwt.signing.algorithm=ES256 requires jwt.signing.ec-private-key and "
+                    + "jwt.signing.ec-public-key, shared by every node");
+        }
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        KeyPair pair = new KeyPair(
+                keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getMimeDecoder().decode(ecPublicKey))),
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(ecPrivateKey))));
+        ECPublicKey publicKey = (ECPublicKey) pair.getPublic();
+        String kid = configuredKeyId.isBlank() ? thumbprint(publicKey) : configuredKeyId;
+        return new RingKey(kid, algorithm, pair.getPrivate(), publicKey, epoch);
+    }
+
+    private JwtSigningKey generateKey(LocalDateTime now) throws GeneralSecurityException {
+        if (algorithm == SignatureAlgorithm.HS256) {
+            byte[] secret = new byte[32];
+            RANDOM.nextBytes(secret);
+            String kid = BASE64URL.encodeToString(MessageDigest.getInstance("SHA-256").digest(secret));
+            return new JwtSigningKey(kid, algorithm.getValue(), cipher.seal(kid, secret), null, now);
+        }
+        KeyPair pair = newEcKeyPair();
+        String kid = thumbprint((ECPublicKey) pair.getPublic());
+        return new JwtSigningKey(kid, algorithm.getValue(), cipher.seal(kid, pair.getPrivate().getEncoded()),
+                Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()), now);
+    }
+
+    /**
+     * Decrypt and parse a stored key; null, after logging, when the row cannot be read, so
+     * one bad row does not keep the rest of the ring from loading
+     */
+    private RingKey toRingKey(JwtSigningKey record) {
+        try {
+            SignatureAlgorithm alg = SignatureAlgorithm.forName(record.getAlgorithm());
+            byte[] secret = cipher.open(record.getKid(), record.getSecret());
+            if (alg.isHmac()) {
+                SecretKey key = Keys.hmacShaKeyFor(secret);
+                return new RingKey(record.getKid(), alg, key, key, record.getCreatedAt());
+            }
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(secret));
+            ECPublicKey publicKey = (ECPublicKey) keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(record.getPublicKey())));
+            return new RingKey(record.getKid(), alg, privateKey, publicKey, record.getCreatedAt());
+        } catch (GeneralSecurityException | RuntimeException e) {
+            log.warn("Skipping unreadable signing key kid={}: {}", record.getKid(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static KeyPair newEcKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private static Map<String, Object> ecJwk(ECPublicKey key) {
+        // Members in lexicographic order, as required for RFC 7638 thumbprints
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("crv", "P-256");
+        jwk.put("kty", "EC");
+        jwk.put("x", BASE64URL.encodeToString(unsigned(key.getW().getAffineX(), 32)));
+        jwk.put("y", BASE64URL.encodeToString(unsigned(key.getW().getAffineY(), 32)));
+        return jwk;
+    }
+
+    private static String thumbprint(ECPublicKey key) throws GeneralSecurityException {
+        Map<String, Object> jwk = ecJwk(key);
+        String canonical = String.format("{\"crv\":\"%s\",\"kty\":\"%s\",\"x\":\"%s\",\"y\":\"%s\"}",
+                jwk.get("crv"), jwk.get("kty"), jwk.get("x"), jwk.get("y"));
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+        return BASE64URL.encodeToString(digest);
+    }
+
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        byte[] out = new byte[length];
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, out, length - copy, copy);
+        return out;
+    }
+}
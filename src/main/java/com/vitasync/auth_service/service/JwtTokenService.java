@@ -2,17 +2,20 @@ package com.vitasync.auth_service.service;
 
 import com.vitasync.auth_service.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -22,18 +25,45 @@ import java.util.function.Function;
 @Service
 public class JwtTokenService {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
-    @Value("${jwt.expiration}")
-    private Long jwtExpirationMs;
+    private final long jwtExpirationMs;
 
     private static final Long REFRESH_TOKEN_EXPIRATION = 7 * 24 * 60 * 60 * 1000L; // 7 days
 
+    // "fast" uses FastJwtCodec for HS256 tokens; "jjwt" (default) always goes through jjwt
+    private final String codec;
+
+    private final JwtSigningKeys signingKeys;
+    private final FastJwtCodec fastJwtCodec;
+
+    // Built once; immutable and thread-safe
+    private JwtParser jwtParser;
+
+    public JwtTokenService(JwtSigningKeys signingKeys, FastJwtCodec fastJwtCodec,
+                           @Value("${jwt.expiration}") long jwtExpirationMs,
+                           @Value("${jwt.codec:jjwt}") String codec) {
+        this.signingKeys = signingKeys;
+        this.fastJwtCodec = fastJwtCodec;
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.codec = codec;
+    }
+
+    @PostConstruct
+    void init() {
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(signingKeys.verificationKeyResolver())
+                .build();
+    }
+
     /**
      * Generate JWT access token for authenticated user
      */
     public String generateToken(User user) {
+        JwtSigningKeys.RingKey key = signingKeys.activeKey();
+        if (useFastCodec(key)) {
+            long now = System.currentTimeMillis();
+            return fastJwtCodec.encodeAccessToken(user, key, now, now + jwtExpirationMs);
+        }
+
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
         claims.put("email", user.getEmail());
@@ -41,6 +71,8 @@ public class JwtTokenService {
         claims.put("firstName", user.getFirstName());
         claims.put("lastName", user.getLastName());
         claims.put("isVerified", user.getIsVerified());
+        claims.put("sv", user.getSecurityVersion() == null ? 0 : user.getSecurityVersion());
+        claims.put(Claims.ID, UUID.randomUUID().toString());
         
         // Add blood type for donors and patients
         if (user.getBloodType() != null) {
@@ -52,36 +84,80 @@ public class JwtTokenService {
             claims.put("organizationId", user.getOrganizationId());
         }
 
-        return createToken(claims, user.getEmail(), jwtExpirationMs);
+        return createToken(claims, user.getEmail(), key, jwtExpirationMs);
     }
 
     /**
-     * Generate refresh token
+     * Generate refresh token as the current member of a token family
      */
-    public String generateRefreshToken(User user) {
+    public String generateRefreshToken(User user, RefreshGrant grant) {
+        JwtSigningKeys.RingKey key = signingKeys.activeKey();
+        if (useFastCodec(key)) {
+            long now = System.currentTimeMillis();
+            return fastJwtCodec.encodeRefreshToken(user, grant, key, now, now + REFRESH_TOKEN_EXPIRATION);
+        }
+
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
-        claims.put("tokenType", "refresh");
+        claims.put("tokenType", VerifiedToken.REFRESH_TYPE);
+        claims.put(Claims.ID, grant.jti());
+        claims.put("fid", grant.familyId());
         
-        return createToken(claims, user.getEmail(), REFRESH_TOKEN_EXPIRATION);
+        return createToken(claims, user.getEmail(), key, REFRESH_TOKEN_EXPIRATION);
     }
 
     /**
      * Create JWT token with specified claims and expiration
      */
-    private String createToken(Map<String, Object> claims, String subject, Long expiration) {
+    private String createToken(Map<String, Object> claims, String subject, JwtSigningKeys.RingKey key, Long expiration) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder();
+        if (key.getKid() != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, key.getKid());
+        }
+
+        return builder
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(key.getSigningKey(), key.getAlgorithm())
                 .compact();
     }
 
+    /**
+     * Verify signature and expiry once and capture the claims callers need.
+     * Throws if the token is malformed, tampered with or expired.
+     */
+    public VerifiedToken verify(String token) {
+        if ("fast".equals(codec)) {
+            VerifiedToken verified = fastJwtCodec.decode(token);
+            if (verified != null) {
+                return verified;
+            }
+        }
+
+        try {
+            Claims claims = extractAllClaims(token);
+            Integer securityVersion = claims.get("sv", Integer.class);
+            return new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get("userId", Long.class),
+                    claims.get("role", String.class),
+                    claims.get("tokenType", String.class),
+                    claims.get("isVerified", Boolean.class),
+                    securityVersion == null ? 0 : securityVersion,
+                    claims.getId(),
+                    claims.get("fid", String.class),
+                    claims.getExpiration()
+            );
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid token: " + e.getMessage());
+        }
+    }
+
     /**
      * Extract username (email) from JWT token
      */
@@ -122,70 +198,11 @@ public class JwtTokenService {
      * Extract all claims from JWT token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    /**
-     * Check if JWT token is expired
-     */
-    public Boolean isTokenExpired(String token) {
-        try {
-            return extractExpiration(token).before(new Date());
-        } catch (Exception e) {
-            return true;
-        }
-    }
-
-    /**
-     * Validate JWT token against user details
-     */
-    public Boolean validateToken(String token, User user) {
-        try {
-            final String username = extractUsername(token);
-            final Long userId = extractUserId(token);
-            
-            return (username.equals(user.getEmail()) && 
-                    userId.equals(user.getId()) && 
-                    !isTokenExpired(token));
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-    /**
-     * Validate JWT token format and signature
-     */
-    public Boolean validateTokenFormat(String token) {
-        try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-    /**
-     * Check if token is a refresh token
-     */
-    public Boolean isRefreshToken(String token) {
-        try {
-            String tokenType = extractClaim(token, claims -> claims.get("tokenType", String.class));
-            return "refresh".equals(tokenType);
-        } catch (Exception e) {
-            return false;
-        }
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
-    /**
-     * Get signing key for JWT operations
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private boolean useFastCodec(JwtSigningKeys.RingKey key) {
+        return "fast".equals(codec) && key.getAlgorithm() == SignatureAlgorithm.HS256;
     }
 
     /**
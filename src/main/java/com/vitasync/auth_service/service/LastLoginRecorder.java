@@ -0,0 +1,168 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for last-login stamps.
+ * Logins only touch memory; pending stamps are flushed periodically as one set-based
+ * UPDATE per batch, so the write rate follows the flush interval rather than the login
+ * rate. Staleness is bounded by the flush interval, and by an early flush once
+ * {@code auth.last-login.max-pending} users are waiting. While a flush is running or the
+ * database is down the buffer stops at {@code auth.last-login.max-buffered} users; stamps
+ * for further users are dropped and counted, since a missed last-login is only cosmetic.
+ */
+@Service
+public class LastLoginRecorder {
+    private static final Logger log = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    private final UserRepository userRepository;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int batchSize;
+    private final int maxPending;
+    private final int maxBuffered;
+    private final Duration shutdownTimeout;
+
+    // The latest drain, replayed to anyone who needs to wait for it to finish writing
+    private Mono<Integer> inFlight = Mono.just(0);
+
+    public LastLoginRecorder(UserRepository userRepository,
+                             @Value("${auth.last-login.batch-size:500}") int batchSize,
+                             @Value("${auth.last-login.max-pending:10000}") int maxPending,
+                             @Value("${auth.last-login.max-buffered:100000}") int maxBuffered,
+                             @Value("${auth.last-login.shutdown-timeout:5s}") Duration shutdownTimeout) {
+        this.userRepository = userRepository;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.maxBuffered = maxBuffered;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Remember a login; the latest stamp per user wins
+     */
+    public void record(Long userId, LocalDateTime loginAt) {
+        if (!buffer(userId, loginAt)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (pending.size() >= maxPending) {
+            flush();
+        }
+    }
+
+    /**
+     * Write all pending stamps; runs on the flush interval, when the buffer fills, and on shutdown
+     */
+    @Scheduled(fixedDelayString = "${auth.last-login.flush-ms:1000}", initialDelayString = "${auth.last-login.flush-ms:1000}")
+    public void flush() {
+        long shed = dropped.getAndSet(0);
+        if (shed > 0) {
+            log.warn("Last-login buffer full, dropped {} stamps", shed);
+        }
+        drain().subscribe(
+                updated -> {
+                    if (updated > 0) {
+                        log.debug("Flushed {} last-login stamps", updated);
+                    }
+                },
+                error -> log.warn("Last-login flush failed: {}", error.getMessage())
+        );
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            // A flush already writing has taken its stamps out of the buffer: wait for it,
+            // then write whatever arrived (or was put back) in the meantime
+            Mono.defer(this::inFlight)
+                    .onErrorReturn(0)
+                    .then(Mono.defer(this::drain))
+                    .block(shutdownTimeout);
+        } catch (RuntimeException e) {
+            log.warn("Last-login flush on shutdown failed, {} stamps lost: {}", pending.size(), e.getMessage());
+        }
+    }
+
+    // Synchronized with inFlight() so a waiter never misses a drain that has already taken its stamps
+    private synchronized Mono<Integer> drain() {
+        if (pending.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return Mono.just(0);
+        }
+
+        List<Map.Entry<Long, LocalDateTime>> drained = new ArrayList<>(pending.size());
+        Iterator<Long> ids = pending.keySet().iterator();
+        while (ids.hasNext()) {
+            Long id = ids.next();
+            LocalDateTime loginAt = pending.remove(id);
+            if (loginAt != null) {
+                drained.add(Map.entry(id, loginAt));
+            }
+        }
+
+        Mono<Integer> run = Flux.fromIterable(drained)
+                .buffer(batchSize)
+                .concatMap(batch -> writeBatch(batch)
+                        .onErrorResume(error -> {
+                            // Put the batch back so the next flush retries it; newer stamps win
+                            batch.forEach(entry -> {
+                                if (!buffer(entry.getKey(), entry.getValue())) {
+                                    dropped.incrementAndGet();
+                                }
+                            });
+                            log.warn("Last-login batch of {} failed, will retry: {}", batch.size(), error.getMessage());
+                            return Mono.just(0);
+                        }))
+                .reduce(0, Integer::sum)
+                // Cleared before completion is replayed, so a waiter's follow-up drain can start
+                .doOnTerminate(() -> flushing.set(false))
+                .cache();
+        inFlight = run;
+        return run;
+    }
+
+    private synchronized Mono<Integer> inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Merge a stamp into the buffer, keeping the newest per user; false when the buffer is
+     * full and the user has no stamp there yet
+     */
+    private boolean buffer(Long userId, LocalDateTime loginAt) {
+        if (pending.size() >= maxBuffered && !pending.containsKey(userId)) {
+            return false;
+        }
+        pending.merge(userId, loginAt, (current, next) -> next.isAfter(current) ? next : current);
+        return true;
+    }
+
+    private Mono<Integer> writeBatch(List<Map.Entry<Long, LocalDateTime>> batch) {
+        Long[] userIds = new Long[batch.size()];
+        LocalDateTime[] loginTimes = new LocalDateTime[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            userIds[i] = batch.get(i).getKey();
+            loginTimes[i] = batch.get(i).getValue();
+        }
+        return userRepository.updateLastLogins(userIds, loginTimes);
+    }
+}
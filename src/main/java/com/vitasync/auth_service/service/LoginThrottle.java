@@ -0,0 +1,285 @@
+package com.vitasync.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory login throttle with sliding windows per account and per client IP.
+ * Attempts are checked before any user lookup or password hashing so credential
+ * stuffing cannot buy BCrypt time. Counters are lock-free and the number of tracked
+ * keys is bounded; idle keys expire after two windows. The client IP is the connection's
+ * remote address unless that is a configured trusted proxy, in which case it is the
+ * nearest X-Forwarded-For hop that is not itself a trusted proxy.
+ */
+@Service
+public class LoginThrottle {
+    private static final Logger log = LoggerFactory.getLogger(LoginThrottle.class);
+
+    private final boolean enabled;
+    private final Limit accountLimit;
+    private final Limit ipLimit;
+    private final Counter rejectedCounter;
+    private final List<TrustedProxy> trustedProxies = new ArrayList<>();
+    private final AtomicBoolean untrustedForwardWarned = new AtomicBoolean();
+
+    public LoginThrottle(@Value("${auth.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${auth.login-throttle.account.max-attempts:10}") int accountMaxAttempts,
+                         @Value("${auth.login-throttle.account.window:15m}") Duration accountWindow,
+                         @Value("${auth.login-throttle.ip.max-attempts:100}") int ipMaxAttempts,
+                         @Value("${auth.login-throttle.ip.window:1m}") Duration ipWindow,
+                         @Value("${auth.login-throttle.max-tracked-keys:100000}") long maxTrackedKeys,
+                         @Value("${auth.login-throttle.trusted-proxies:}") List<String> trustedProxies,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.accountLimit = new Limit(accountMaxAttempts, accountWindow, maxTrackedKeys);
+        this.ipLimit = new Limit(ipMaxAttempts, ipWindow, maxTrackedKeys);
+        this.rejectedCounter = Counter.builder("auth.login.throttled").register(meterRegistry);
+        for (String proxy : trustedProxies) {
+            if (!proxy.isBlank()) {
+                this.trustedProxies.add(TrustedProxy.parse(proxy));
+            }
+        }
+        if (enabled && this.trustedProxies.isEmpty()) {
+            log.info("Per-IP login limit ({} per {}) keys on the connection's remote address; set "
+                    + "auth.login-throttle.trusted-proxies when running behind a proxy or load balancer",
+                    ipMaxAttempts, ipWindow);
+        }
+    }
+
+    /**
+     * The address the per-IP limit applies to. X-Forwarded-For is only read when the connection
+     * comes from a trusted proxy, walking it from the right so a client cannot pick its own key
+     * by prepending hops.
+     */
+    public String clientIp(InetAddress remote, String forwardedFor) {
+        if (remote == null) {
+            return null;
+        }
+        String client = remote.getHostAddress();
+        boolean forwarded = forwardedFor != null && !forwardedFor.isBlank();
+        if (!isTrustedProxy(remote.getAddress())) {
+            if (forwarded && trustedProxies.isEmpty() && untrustedForwardWarned.compareAndSet(false, true)) {
+                log.warn("Login from {} carries X-Forwarded-For but auth.login-throttle.trusted-proxies is not set; "
+                        + "every client behind that proxy shares one per-IP login limit", client);
+            }
+            return client;
+        }
+        if (forwarded) {
+            String[] hops = forwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (hop.isEmpty()) {
+                    continue;
+                }
+                byte[] hopAddress = TrustedProxy.literal(hop);
+                if (hopAddress == null || !isTrustedProxy(hopAddress)) {
+                    return hop;
+                }
+                client = hop;
+            }
+        }
+        return client;
+    }
+
+    private boolean isTrustedProxy(byte[] address) {
+        for (TrustedProxy proxy : trustedProxies) {
+            if (proxy.matches(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record a login attempt, rejecting it if the account or client IP is over its limit
+     */
+    public void acquire(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long retryAfterMs = 0;
+        if (clientIp != null) {
+            retryAfterMs = ipLimit.tryAcquire(clientIp, now);
+        }
+        if (retryAfterMs == 0 && email != null) {
+            retryAfterMs = accountLimit.tryAcquire(normalize(email), now);
+        }
+        if (retryAfterMs > 0) {
+            rejectedCounter.increment();
+            log.warn("Login throttled for email={} ip={}", email, clientIp);
+            throw new ThrottledException(Duration.ofMillis(retryAfterMs));
+        }
+    }
+
+    /**
+     * Clear the account window after a successful login
+     */
+    public void reset(String email) {
+        if (enabled && email != null) {
+            accountLimit.windows.invalidate(normalize(email));
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A trusted proxy address or CIDR range, e.g. 10.0.0.0/8
+     */
+    private record TrustedProxy(byte[] network, int prefixBits) {
+
+        static TrustedProxy parse(String spec) {
+            String value = spec.trim();
+            int slash = value.indexOf('/');
+            byte[] network = literal(slash < 0 ? value : value.substring(0, slash));
+            if (network == null) {
+                throw new IllegalArgumentException("Trusted proxy must be an IP address or CIDR range: " + spec);
+            }
+            int prefixBits = network.length * 8;
+            if (slash >= 0) {
+                try {
+                    prefixBits = Integer.parseInt(value.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    prefixBits = -1;
+                }
+                if (prefixBits < 0 || prefixBits > network.length * 8) {
+                    throw new IllegalArgumentException("Invalid prefix length in trusted proxy: " + spec);
+                }
+            }
+            return new TrustedProxy(network, prefixBits);
+        }
+
+        /**
+         * Bytes of an IP literal, or null for anything else; never resolves host names
+         */
+        static byte[] literal(String address) {
+            if (address.isEmpty() || !address.matches("[0-9A-Fa-f:.]+")) {
+                return null;
+            }
+            try {
+                return InetAddress.getByName(address).getAddress();
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+
+        boolean matches(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixBits / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixBits % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+
+    /**
+     * Attempt limit for one key space
+     */
+    private static final class Limit {
+        private final int maxAttempts;
+        private final long windowMs;
+        private final Cache<String, SlidingWindow> windows;
+
+        Limit(int maxAttempts, Duration window, long maxTrackedKeys) {
+            this.maxAttempts = maxAttempts;
+            this.windowMs = window.toMillis();
+            this.windows = Caffeine.newBuilder()
+                    .maximumSize(maxTrackedKeys)
+                    .expireAfterAccess(window.multipliedBy(2))
+                    .build();
+        }
+
+        /**
+         * @return 0 if the attempt is allowed, otherwise milliseconds until the caller may retry
+         */
+        long tryAcquire(String key, long now) {
+            SlidingWindow window = windows.get(key, k -> new SlidingWindow());
+            return window.tryAcquire(now, windowMs, maxAttempts);
+        }
+    }
+
+    /**
+     * Two-bucket sliding window packed into one AtomicLong:
+     * window index (24 bits) | previous window count (20 bits) | current window count (20 bits).
+     * The estimate weights the previous window by how much of it still overlaps the sliding window.
+     */
+    static final class SlidingWindow {
+        private static final int COUNT_BITS = 20;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+        private static final long INDEX_MASK = (1L << 24) - 1;
+
+        private final AtomicLong state = new AtomicLong();
+
+        long tryAcquire(long now, long windowMs, int maxAttempts) {
+            long index = (now / windowMs) & INDEX_MASK;
+            double elapsed = (double) (now % windowMs) / windowMs;
+            while (true) {
+                long current = state.get();
+                long currentIndex = current >>> (2 * COUNT_BITS);
+                long previousCount = (current >>> COUNT_BITS) & COUNT_MASK;
+                long currentCount = current & COUNT_MASK;
+
+                if (currentIndex != index) {
+                    // Roll over: the old current window becomes previous only if it is adjacent
+                    previousCount = currentIndex == ((index - 1) & INDEX_MASK) ? currentCount : 0;
+                    currentCount = 0;
+                }
+
+                double estimate = previousCount * (1 - elapsed) + currentCount;
+                if (estimate >= maxAttempts) {
+                    return Math.max(1, windowMs - now % windowMs);
+                }
+
+                long next = (index << (2 * COUNT_BITS))
+                        | (previousCount << COUNT_BITS)
+                        | Math.min(currentCount + 1, COUNT_MASK);
+                if (state.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Raised when a login attempt is over its limit; callers should answer 429 with Retry-After
+     */
+    public static class ThrottledException extends RuntimeException {
+        private final Duration retryAfter;
+
+        public ThrottledException(Duration retryAfter) {
+            super("Too many login attempts");
+            this.retryAfter = retryAfter;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+}
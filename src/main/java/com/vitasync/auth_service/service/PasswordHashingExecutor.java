@@ -0,0 +1,142 @@
+package com.vitasync.auth_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated worker pool for password hashing.
+ * BCrypt is deliberately slow, so it must never run on event-loop threads. The pool
+ * and its queue are bounded; once the queue is full new work is refused immediately
+ * instead of piling up behind a login storm.
+ */
+@Service
+public class PasswordHashingExecutor {
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(@Value("${auth.hashing.threads:0}") int threads,
+                                   @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${auth.hashing.retry-after:1s}") Duration retryAfter,
+                                   MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = retryAfter;
+
+        this.encodeTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.password.hash.queue.wait")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.hash.rejected")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue.depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+
+        log.info("Password hashing pool: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Hash a new password on the hashing pool
+     */
+    public Mono<String> encode(Callable<String> encode) {
+        return submit(encode, encodeTimer);
+    }
+
+    /**
+     * Check a password against its hash on the hashing pool
+     */
+    public Mono<Boolean> matches(Callable<Boolean> matches) {
+        return submit(matches, matchesTimer);
+    }
+
+    /**
+     * Mean time of a password check so far, used to estimate hashing time saved by caching
+     */
+    public double meanMatchesSeconds() {
+        return matchesTimer.mean(TimeUnit.SECONDS);
+    }
+
+    private <T> Mono<T> submit(Callable<T> work, Timer timer) {
+        return Mono.<T>create(sink -> {
+            long queuedAt = System.nanoTime();
+            Future<?> future;
+            try {
+                future = executor.submit(() -> {
+                    long startedAt = System.nanoTime();
+                    queueWaitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                    try {
+                        sink.success(work.call());
+                    } catch (Exception e) {
+                        sink.error(e);
+                    } finally {
+                        timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejectedCounter.increment();
+                sink.error(new SaturatedException(retryAfter));
+                return;
+            }
+            // Drop queued work whose caller has gone away; running hashes finish normally
+            sink.onCancel(() -> future.cancel(false));
+        }).publishOn(Schedulers.parallel()); // hand the result back so hashing threads only hash
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Raised when the hashing queue is full; callers should answer 503 with Retry-After
+     */
+    public static class SaturatedException extends RuntimeException {
+        private final Duration retryAfter;
+
+        public SaturatedException(Duration retryAfter) {
+            super("Password hashing capacity exceeded");
+            this.retryAfter = retryAfter;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+}
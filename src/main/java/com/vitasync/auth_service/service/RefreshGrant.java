@@ -0,0 +1,6 @@
+package com.vitasync.auth_service.service;
+
+/**
+ * Identity of the refresh token about to be issued: its family and its own jti
+ */
+public record RefreshGrant(String familyId, String jti) {}
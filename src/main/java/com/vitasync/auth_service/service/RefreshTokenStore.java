@@ -0,0 +1,148 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.repository.RefreshTokenFamilyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Refresh token families with rotation and reuse detection.
+ * Every decision is the database's: rotation is a conditional update that only matches the
+ * current token of a live family, so revocations made by any node apply immediately. A token that was
+ * replaced moments ago is answered with the grant that replaced it rather than treated as
+ * reuse, so a client firing two refreshes at once (or retrying a lost response) keeps its session.
+ */
+@Service
+public class RefreshTokenStore {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenStore.class);
+
+    private final RefreshTokenFamilyRepository familyRepository;
+    private final JwtTokenService jwtTokenService;
+    private final int sweepBatchSize;
+    private final Duration reuseGrace;
+
+    public RefreshTokenStore(RefreshTokenFamilyRepository familyRepository,
+                             JwtTokenService jwtTokenService,
+                             @Value("${auth.refresh.sweep-batch-size:1000}") int sweepBatchSize,
+                             @Value("${auth.refresh.reuse-grace:10s}") Duration reuseGrace) {
+        this.familyRepository = familyRepository;
+        this.jwtTokenService = jwtTokenService;
+        this.sweepBatchSize = sweepBatchSize;
+        this.reuseGrace = reuseGrace;
+    }
+
+    /**
+     * Start a new family for a fresh login or registration
+     */
+    public Mono<RefreshGrant> startFamily(Long userId) {
+        UUID familyId = UUID.randomUUID();
+        UUID jti = UUID.randomUUID();
+        return familyRepository.insert(familyId, userId, jti, toLocalDateTime(nextExpiry()))
+                .thenReturn(new RefreshGrant(familyId.toString(), jti.toString()));
+    }
+
+    /**
+     * Exchange the presented refresh token for the next member of its family.
+     * Presenting the token the family just rotated away from, within the grace window,
+     * returns the current member again; any other token that is no longer current
+     * revokes the whole family.
+     */
+    public Mono<RefreshGrant> rotate(VerifiedToken refreshToken) {
+        if (refreshToken.familyId() == null || refreshToken.jti() == null) {
+            // Issued before families existed; without a jti it could be replayed indefinitely
+            return Mono.error(new RuntimeException("Invalid refresh token"));
+        }
+
+        UUID familyId;
+        UUID presentedJti;
+        try {
+            familyId = UUID.fromString(refreshToken.familyId());
+            presentedJti = UUID.fromString(refreshToken.jti());
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new RuntimeException("Invalid refresh token"));
+        }
+
+        UUID nextJti = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        return familyRepository.rotate(familyId, presentedJti, nextJti, now, toLocalDateTime(nextExpiry()))
+                .flatMap(updated -> {
+                    if (updated == 0) {
+                        return rotatedWithinGrace(familyId, presentedJti, now)
+                                .switchIfEmpty(Mono.defer(() -> {
+                                    log.warn("Refresh token reuse detected, revoking family={} userId={}",
+                                            familyId, refreshToken.userId());
+                                    return revokeFamily(familyId)
+                                            .then(Mono.<RefreshGrant>error(new RuntimeException("Invalid refresh token")));
+                                }));
+                    }
+                    return Mono.just(new RefreshGrant(familyId.toString(), nextJti.toString()));
+                });
+    }
+
+    /**
+     * The grant that replaced the presented token, if that happened within the grace window
+     */
+    private Mono<RefreshGrant> rotatedWithinGrace(UUID familyId, UUID presentedJti, LocalDateTime now) {
+        if (reuseGrace.isZero() || reuseGrace.isNegative()) {
+            return Mono.empty();
+        }
+        return familyRepository.findCurrentJtiRotatedFrom(familyId, presentedJti, now.minus(reuseGrace))
+                .map(currentJti -> new RefreshGrant(familyId.toString(), currentJti.toString()));
+    }
+
+    /**
+     * Revoke every refresh token family of a user, e.g. on deactivation
+     */
+    public Mono<Void> revokeAllForUser(Long userId) {
+        return familyRepository.revokeByUserId(userId).then();
+    }
+
+    /**
+     * Revoke the family a refresh token belongs to, e.g. on logout
+     */
+    public Mono<Void> revokeFamily(VerifiedToken refreshToken) {
+        if (refreshToken.familyId() == null) {
+            return Mono.empty();
+        }
+        try {
+            return revokeFamily(UUID.fromString(refreshToken.familyId()));
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new RuntimeException("Invalid refresh token"));
+        }
+    }
+
+    private Mono<Void> revokeFamily(UUID familyId) {
+        return familyRepository.revoke(familyId).then();
+    }
+
+    /**
+     * Delete expired families from the database in batches
+     */
+    @Scheduled(fixedDelayString = "${auth.refresh.sweep-ms:600000}", initialDelayString = "${auth.refresh.sweep-ms:600000}")
+    public void sweepExpired() {
+        familyRepository.deleteExpired(sweepBatchSize)
+                .expand(deleted -> deleted < sweepBatchSize ? Mono.empty() : familyRepository.deleteExpired(sweepBatchSize))
+                .reduce(0, Integer::sum)
+                .subscribe(
+                        deleted -> log.debug("Swept {} expired refresh token families", deleted),
+                        error -> log.warn("Refresh token sweep failed: {}", error.getMessage())
+                );
+    }
+
+    private long nextExpiry() {
+        return System.currentTimeMillis() + jwtTokenService.getRefreshTokenExpirationTime();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
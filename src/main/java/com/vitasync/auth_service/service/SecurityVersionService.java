@@ -0,0 +1,109 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.model.UserSecurityVersion;
+import com.vitasync.auth_service.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of per-user security versions for stateless token validation.
+ * Only users whose version has been bumped are tracked; everyone else is at 0.
+ * Polls read only (id, security_version) for rows updated since the newest update time
+ * seen, less an overlap for writers whose clocks run behind; a periodic full pass
+ * reconciles anything the overlap still missed.
+ */
+@Service
+public class SecurityVersionService {
+    private static final Logger log = LoggerFactory.getLogger(SecurityVersionService.class);
+
+    // updated_at is written by both node and database clocks
+    private static final Duration OVERLAP = Duration.ofMinutes(1);
+
+    private final UserRepository userRepository;
+    private final Duration fullRefreshInterval;
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    // Newest updated_at seen; null until a full pass has loaded the table
+    private volatile LocalDateTime watermark;
+    private volatile long lastFullRefreshMillis;
+
+    public SecurityVersionService(UserRepository userRepository,
+                                  @Value("${jwt.validate.version-full-refresh:10m}") Duration fullRefreshInterval) {
+        this.userRepository = userRepository;
+        this.fullRefreshInterval = fullRefreshInterval;
+    }
+
+    /**
+     * Current security version for a user
+     */
+    public int currentVersion(Long userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Check that a verified token was issued at the user's current security version
+     */
+    public boolean isCurrent(VerifiedToken token) {
+        return token.userId() != null && token.securityVersion() == currentVersion(token.userId());
+    }
+
+    /**
+     * Record the version of a user that was just written
+     */
+    public void record(User user) {
+        record(user.getId(), user.getSecurityVersion());
+    }
+
+    private void record(Long userId, Integer version) {
+        if (userId != null && version != null && version > 0) {
+            versions.merge(userId, version, Math::max);
+        }
+    }
+
+    /**
+     * Load the table at startup and reconcile with changes made by other nodes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.validate.version-refresh-ms:30000}",
+               initialDelayString = "${jwt.validate.version-refresh-ms:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        LocalDateTime since = watermark;
+        boolean full = since == null || now - lastFullRefreshMillis >= fullRefreshInterval.toMillis();
+        Flux<UserSecurityVersion> changed = full
+                ? userRepository.findBumpedSecurityVersions()
+                : userRepository.findBumpedSecurityVersionsUpdatedAfter(since.minus(OVERLAP));
+        changed.doOnNext(row -> {
+                    record(row.id(), row.securityVersion());
+                    advanceWatermark(row.updatedAt());
+                })
+                .count()
+                .subscribe(
+                        count -> {
+                            if (full) {
+                                lastFullRefreshMillis = now;
+                                log.debug("Security version table reloaded: {} tracked users", count);
+                            }
+                        },
+                        error -> log.warn("Security version refresh failed: {}", error.getMessage())
+                );
+    }
+
+    private synchronized void advanceWatermark(LocalDateTime seen) {
+        if (seen != null && (watermark == null || seen.isAfter(watermark))) {
+            watermark = seen;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.vitasync.auth_service.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Encrypts signing key material before it is written to jwt_signing_keys.
+ * Secrets are sealed with AES-256-GCM under the key-encryption key from configuration,
+ * with the kid as associated data so a secret copied onto another row fails to open.
+ * Stored as {@code v1:base64(iv || ciphertext)}; rows without the prefix were written
+ * before encryption and are read as plain base64 until they age out of the ring.
+ */
+final class SigningKeyCipher {
+
+    private static final String PREFIX = "v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Null when no key-encryption key is configured; only sealing requires one
+    private final SecretKey kek;
+
+    SigningKeyCipher(String encodedKek) {
+        if (encodedKek == null || encodedKek.isBlank()) {
+            this.kek = null;
+            return;
+        }
+        byte[] bytes = Base64.getDecoder().decode(encodedKek.trim());
+        if (bytes.length != 32) {
+            throw new IllegalStateException("jwt.keys.encryption-key must be a base64-encoded 256-bit key");
+        }
+        this.kek = new SecretKeySpec(bytes, "AES");
+    }
+
+    boolean isConfigured() {
+        return kek != null;
+    }
+
+    String seal(String kid, byte[] secret) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_BYTES];
+        RANDOM.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, requireKek(), new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        byte[] ciphertext = cipher.doFinal(secret);
+
+        byte[] sealed = new byte[IV_BYTES + ciphertext.length];
+        System.arraycopy(iv, 0, sealed, 0, IV_BYTES);
+        System.arraycopy(ciphertext, 0, sealed, IV_BYTES, ciphertext.length);
+        return PREFIX + Base64.getEncoder().encodeToString(sealed);
+    }
+
+    byte[] open(String kid, String stored) throws GeneralSecurityException {
+        if (!stored.startsWith(PREFIX)) {
+            return Base64.getDecoder().decode(stored);
+        }
+        byte[] sealed = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, requireKek(), new GCMParameterSpec(TAG_BITS, sealed, 0, IV_BYTES));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(sealed, IV_BYTES, sealed.length - IV_BYTES);
+    }
+
+    private SecretKey requireKek() {
+        if (kek == null) {
+            throw new IllegalStateException("jwt.keys.encryption-key is not set");
+        }
+        return kek;
+    }
+}
@@ -0,0 +1,74 @@
+package com.vitasync.auth_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical lookups into one in-flight query.
+ * The first caller for a key registers a cached Mono in a concurrent map; callers that
+ * arrive before it terminates subscribe to the same Mono instead of querying again.
+ * The entry is removed as soon as the query completes or errors, so nothing is cached
+ * beyond the lifetime of the query itself; a caller cancelling does not cancel the
+ * query for the others. Shared results must be treated as read-only; callers that
+ * mutate should copy after subscribing.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executedCounter;
+    private final Counter coalescedCounter;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.executedCounter = Counter.builder("auth.singleflight.executed")
+                .tag("lookup", name)
+                .description("Lookups that went to the database")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("auth.singleflight.coalesced")
+                .tag("lookup", name)
+                .description("Lookups answered by joining an identical in-flight query")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run {@code query} for the key, or join the query already running for it
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> query) {
+        return Mono.defer(() -> {
+            Mono<V> running = inFlight.get(key);
+            if (running != null) {
+                coalescedCounter.increment();
+                return running;
+            }
+
+            @SuppressWarnings("unchecked")
+            Mono<V>[] self = new Mono[1];
+            self[0] = Mono.defer(query)
+                    .doFinally(signal -> inFlight.remove(key, self[0]))
+                    .cache();
+            running = inFlight.putIfAbsent(key, self[0]);
+            if (running != null) {
+                coalescedCounter.increment();
+                return running;
+            }
+            executedCounter.increment();
+            return self[0];
+        });
+    }
+
+    /**
+     * Stop handing out the query running for the key; callers already joined keep it, later
+     * callers start a new one. Used when a write makes the running query's answer stale.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,151 @@
+package com.vitasync.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.vitasync.auth_service.model.UserIdentity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of successful token validations keyed by a SHA-256 digest of the token.
+ * Entries live until the token's own expiry or the configured TTL, whichever comes first.
+ * A hit only saves the signature check, claim parsing and user lookup: revocation state
+ * (denylist, security version, active flag) changes on other nodes without touching this
+ * cache, so callers must re-check it on every hit.
+ */
+@Service
+public class TokenValidationCache {
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Cache<ByteBuffer, Entry> cache;
+    // Secondary index so evicting one user does not scan the whole cache
+    private final Map<Long, Set<ByteBuffer>> keysByUser = new ConcurrentHashMap<>();
+
+    /**
+     * A cached validation: the verified claims and the user they resolved to
+     */
+    public record Validation(VerifiedToken token, UserIdentity user) {}
+
+    private record Entry(Validation validation, long expiresAtMillis) {}
+
+    public TokenValidationCache(@Value("${auth.token-cache.enabled:true}") boolean enabled,
+                                @Value("${auth.token-cache.max-size:100000}") long maxSize,
+                                @Value("${auth.token-cache.ttl:5m}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, Entry>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, Entry value, long currentTime) {
+                        long remainingMs = value.expiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, Entry value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, Entry value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener((ByteBuffer key, Entry entry, RemovalCause cause) -> {
+                    if (key != null && entry != null && cause != RemovalCause.REPLACED) {
+                        unindex(entry.validation().user().id(), key);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.token.validation");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Look up a previously validated token; null on miss
+     */
+    public Validation get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(digest(token));
+        return entry == null ? null : entry.validation();
+    }
+
+    /**
+     * Remember a successful validation until the token expires or the TTL elapses
+     */
+    public void put(String token, VerifiedToken verified, UserIdentity user) {
+        if (!enabled) {
+            return;
+        }
+        long expiresAt = Math.min(verified.expiration().getTime(), System.currentTimeMillis() + ttl.toMillis());
+        ByteBuffer key = digest(token);
+        if (user.id() != null) {
+            keysByUser.computeIfAbsent(user.id(), id -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        cache.put(key, new Entry(new Validation(verified, user), expiresAt));
+    }
+
+    /**
+     * Drop every cached validation for a user after it was changed
+     */
+    public void evictUser(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        Set<ByteBuffer> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    /**
+     * Drop a single token, e.g. on logout
+     */
+    public void evict(String token) {
+        if (enabled) {
+            cache.invalidate(digest(token));
+        }
+    }
+
+    private void unindex(Long userId, ByteBuffer key) {
+        if (userId == null) {
+            return;
+        }
+        keysByUser.computeIfPresent(userId, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
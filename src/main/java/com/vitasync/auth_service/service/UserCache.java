@@ -0,0 +1,318 @@
+package com.vitasync.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.model.UserIdentity;
+import com.vitasync.auth_service.model.UserSummary;
+import com.vitasync.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.vitasync.auth_service.config.ReadReplicaRoutingConnectionFactory.readOnly;
+
+/**
+ * Read-through cache of users in front of {@link UserRepository}.
+ * Entries are keyed by id; an email index points at the same entry, so both lookups
+ * share one copy and one invalidation. Callers always get a detached copy or a
+ * projection, and the password hash is only included when explicitly asked for.
+ * Projection lookups are answered from a cached full entry when there is one, otherwise
+ * from their own projection caches, which a miss fills; invalidation clears all three.
+ * Misses for the same key that arrive together share one query through {@link SingleFlight}.
+ * Projection misses may be served by a read replica; full users, which feed login,
+ * refresh and writes, are always read from the primary. A user the replica does not have
+ * yet (registered moments ago) is looked up again on the primary, and writers seed the
+ * row they just wrote so this node does not need the replica for it at all.
+ * A load only caches its result if no write invalidated its key while it ran, and an
+ * invalidation also detaches the running load, so a read racing a write can neither
+ * re-cache the old row nor hand it to callers that arrive after the write.
+ */
+@Service
+public class UserCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final Cache<Long, User> byId;
+    private final Map<String, Long> idByEmail = new ConcurrentHashMap<>();
+    private final Cache<String, UserIdentity> identitiesByEmail;
+    private final Cache<Long, UserSummary> summariesById;
+    private final SingleFlight<String, UserIdentity> identityLoads;
+    private final SingleFlight<String, User> userLoads;
+    private final SingleFlight<Long, User> userByIdLoads;
+    // Write generations per key stripe; a collision only costs a skipped cache fill
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${auth.user-cache.enabled:true}") boolean enabled,
+                     @Value("${auth.user-cache.max-size:10000}") long maxSize,
+                     @Value("${auth.user-cache.ttl:30s}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .removalListener((Long id, User user, RemovalCause cause) -> {
+                    if (user != null && cause != RemovalCause.REPLACED) {
+                        idByEmail.remove(user.getEmail(), id);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "auth.users");
+        this.identitiesByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, identitiesByEmail, "auth.user-identities");
+        this.summariesById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, summariesById, "auth.user-summaries");
+        this.identityLoads = new SingleFlight<>("user-identity-by-email", meterRegistry);
+        this.userLoads = new SingleFlight<>("user-by-email", meterRegistry);
+        this.userByIdLoads = new SingleFlight<>("user-by-id", meterRegistry);
+    }
+
+    /**
+     * Find a user by id, without the password hash
+     */
+    public Mono<User> findById(Long id) {
+        User cached = enabled ? byId.getIfPresent(id) : null;
+        if (cached != null) {
+            return Mono.just(cached.copy(false));
+        }
+        return userByIdLoads.execute(id, () -> {
+                    long generation = generation(id);
+                    return userRepository.findById(id).doOnNext(user -> putIfUnchanged(user, id, generation));
+                })
+                .map(user -> user.copy(false));
+    }
+
+    /**
+     * Profile projections for many ids; cached entries are served directly and the rest go out as one query
+     */
+    public Mono<Map<Long, UserSummary>> findSummariesById(Collection<Long> ids) {
+        Map<Long, UserSummary> found = new HashMap<>();
+        Map<Long, Long> misses = new HashMap<>();
+        for (Long id : ids) {
+            UserSummary cached = enabled ? cachedSummary(id) : null;
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.put(id, generation(id));
+            }
+        }
+        if (misses.isEmpty()) {
+            return Mono.just(found);
+        }
+        return readOnly(userRepository.findSummariesByIdIn(misses.keySet()))
+                .doOnNext(summary -> {
+                    if (unchanged(summary.id(), misses.get(summary.id()))) {
+                        putSummary(summary);
+                    }
+                })
+                .collect(() -> found, (users, user) -> users.put(user.id(), user));
+    }
+
+    /**
+     * Validation projection by email; served from a cached entry when present, otherwise a narrow query
+     */
+    public Mono<UserIdentity> findIdentityByEmail(String email) {
+        UserIdentity cached = enabled ? cachedIdentity(email) : null;
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return identityLoads.execute(email, () -> {
+            long generation = generation(email);
+            return readOnly(userRepository.findIdentityByEmail(email))
+                    .switchIfEmpty(Mono.defer(() -> userRepository.findIdentityByEmail(email)))
+                    .doOnNext(identity -> {
+                        if (unchanged(email, generation)) {
+                            putIdentity(identity);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Find a user by email, without the password hash
+     */
+    public Mono<User> findByEmail(String email) {
+        return lookupByEmail(email, false);
+    }
+
+    /**
+     * Find a user by email including the password hash, for credential checks only
+     */
+    public Mono<User> findByEmailWithCredentials(String email) {
+        return lookupByEmail(email, true);
+    }
+
+    /**
+     * Validation projections for many emails; cached entries are served directly and the rest go out as one query
+     */
+    public Mono<Map<String, UserIdentity>> findIdentitiesByEmail(Collection<String> emails) {
+        Map<String, UserIdentity> found = new HashMap<>();
+        Map<String, Long> misses = new HashMap<>();
+        for (String email : emails) {
+            UserIdentity cached = enabled ? cachedIdentity(email) : null;
+            if (cached != null) {
+                found.put(email, cached);
+            } else {
+                misses.put(email, generation(email));
+            }
+        }
+        if (misses.isEmpty()) {
+            return Mono.just(found);
+        }
+        return readOnly(userRepository.findIdentitiesByEmailIn(misses.keySet()))
+                .doOnNext(identity -> putIdentityIfUnchanged(identity, misses))
+                .collect(() -> found, (users, user) -> users.put(user.email(), user))
+                .flatMap(users -> {
+                    Set<String> unreplicated = new HashSet<>(misses.keySet());
+                    unreplicated.removeAll(users.keySet());
+                    if (unreplicated.isEmpty()) {
+                        return Mono.just(users);
+                    }
+                    // Not on the replica yet; the primary is the authority on whether they exist
+                    return userRepository.findIdentitiesByEmailIn(unreplicated)
+                            .doOnNext(identity -> putIdentityIfUnchanged(identity, misses))
+                            .collect(() -> users, (all, user) -> all.put(user.email(), user));
+                });
+    }
+
+    /**
+     * Replace a user with the row that was just written, so reads on this node see the
+     * write without waiting for a replica to replay it
+     */
+    public void seed(User user) {
+        invalidate(user);
+        if (user != null) {
+            put(user);
+        }
+    }
+
+    /**
+     * Drop a user after any write so the next read goes to the database
+     */
+    public void invalidate(User user) {
+        if (user == null) {
+            return;
+        }
+        if (user.getId() != null) {
+            invalidateId(user.getId());
+        }
+        if (user.getEmail() != null) {
+            bump(user.getEmail());
+            identityLoads.forget(user.getEmail());
+            userLoads.forget(user.getEmail());
+            identitiesByEmail.invalidate(user.getEmail());
+            Long id = idByEmail.remove(user.getEmail());
+            if (id != null) {
+                invalidateId(id);
+            }
+        }
+    }
+
+    private void invalidateId(Long id) {
+        bump(id);
+        userByIdLoads.forget(id);
+        byId.invalidate(id);
+        summariesById.invalidate(id);
+    }
+
+    private long generation(Object key) {
+        return generations.get(stripe(key));
+    }
+
+    private boolean unchanged(Object key, Long generation) {
+        return generation != null && generations.get(stripe(key)) == generation;
+    }
+
+    private void bump(Object key) {
+        generations.incrementAndGet(stripe(key));
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(key.hashCode() * 0x9E3779B9, GENERATION_STRIPES);
+    }
+
+    private Mono<User> lookupByEmail(String email, boolean includePasswordHash) {
+        User cached = enabled ? cachedByEmail(email) : null;
+        if (cached != null) {
+            return Mono.just(cached.copy(includePasswordHash));
+        }
+        // The loaded user is shared by every joined caller, so each one gets its own copy
+        return userLoads.execute(email, () -> {
+                    long generation = generation(email);
+                    return userRepository.findByEmail(email).doOnNext(user -> putIfUnchanged(user, email, generation));
+                })
+                .map(user -> user.copy(includePasswordHash));
+    }
+
+    private User cachedByEmail(String email) {
+        Long id = idByEmail.get(email);
+        return id == null ? null : byId.getIfPresent(id);
+    }
+
+    private UserIdentity cachedIdentity(String email) {
+        User cached = cachedByEmail(email);
+        return cached != null ? UserIdentity.of(cached) : identitiesByEmail.getIfPresent(email);
+    }
+
+    private UserSummary cachedSummary(Long id) {
+        User cached = byId.getIfPresent(id);
+        return cached != null ? UserSummary.of(cached) : summariesById.getIfPresent(id);
+    }
+
+    private void putIdentityIfUnchanged(UserIdentity identity, Map<String, Long> generationsAtLoad) {
+        if (unchanged(identity.email(), generationsAtLoad.get(identity.email()))) {
+            putIdentity(identity);
+        }
+    }
+
+    private void putIfUnchanged(User user, Object loadedBy, long generation) {
+        if (unchanged(loadedBy, generation)) {
+            put(user);
+        }
+    }
+
+    private void putIdentity(UserIdentity identity) {
+        if (enabled && identity.email() != null) {
+            identitiesByEmail.put(identity.email(), identity);
+        }
+    }
+
+    private void putSummary(UserSummary summary) {
+        if (enabled && summary.id() != null) {
+            summariesById.put(summary.id(), summary);
+        }
+    }
+
+    private void put(User user) {
+        if (!enabled || user.getId() == null) {
+            return;
+        }
+        byId.put(user.getId(), user.copy(true));
+        idByEmail.put(user.getEmail(), user.getId());
+    }
+}
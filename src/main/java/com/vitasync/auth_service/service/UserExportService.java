@@ -0,0 +1,86 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.Role;
+import com.vitasync.auth_service.model.UserSummary;
+import com.vitasync.auth_service.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.vitasync.auth_service.config.ReadReplicaRoutingConnectionFactory.readOnly;
+
+/**
+ * Streams users for reporting exports.
+ * Rows are read in keyset pages ({@code id > cursor ORDER BY id LIMIT n}) and the next
+ * page is only queried once the previous one has been consumed downstream, so memory
+ * stays at about two pages regardless of how many users match. Credentials are never
+ * selected; callers choose which of the remaining columns each row carries.
+ */
+@Service
+public class UserExportService {
+
+    /**
+     * Exportable columns, in output order
+     */
+    public static final Map<String, Function<UserSummary, Object>> FIELDS;
+
+    static {
+        Map<String, Function<UserSummary, Object>> fields = new LinkedHashMap<>();
+        fields.put("id", UserSummary::id);
+        fields.put("email", UserSummary::email);
+        fields.put("phoneNumber", UserSummary::phoneNumber);
+        fields.put("firstName", UserSummary::firstName);
+        fields.put("lastName", UserSummary::lastName);
+        fields.put("role", UserSummary::role);
+        fields.put("isActive", UserSummary::isActive);
+        fields.put("isVerified", UserSummary::isVerified);
+        fields.put("bloodType", UserSummary::bloodType);
+        fields.put("organizationId", UserSummary::organizationId);
+        FIELDS = Collections.unmodifiableMap(fields);
+    }
+
+    private final UserRepository userRepository;
+
+    @Value("${auth.export.page-size:1000}")
+    private int pageSize;
+
+    public UserExportService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * All users matching the filters in id order, each reduced to the requested fields.
+     * Null filters match everything; an empty field list exports every field.
+     */
+    public Flux<Map<String, Object>> export(Role role, Long organizationId, String bloodType, List<String> fields) {
+        List<String> selected = fields == null || fields.isEmpty() ? List.copyOf(FIELDS.keySet()) : fields;
+        String roleName = role == null ? null : role.name();
+
+        return page(0L, roleName, organizationId, bloodType)
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty()
+                        : page(page.get(page.size() - 1).id(), roleName, organizationId, bloodType))
+                // Prefetch of one page keeps at most the current and the next page in memory
+                .concatMapIterable(page -> page, 1)
+                .map(user -> project(user, selected));
+    }
+
+    private Mono<List<UserSummary>> page(Long afterId, String role, Long organizationId, String bloodType) {
+        return readOnly(userRepository.findExportPage(afterId, role, organizationId, bloodType, pageSize)).collectList();
+    }
+
+    private static Map<String, Object> project(UserSummary user, List<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+        for (String field : fields) {
+            row.put(field, FIELDS.get(field).apply(user));
+        }
+        return row;
+    }
+}
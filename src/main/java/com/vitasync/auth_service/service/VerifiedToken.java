@@ -0,0 +1,53 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.model.UserIdentity;
+
+import java.util.Date;
+
+/**
+ * Result of a single signature and expiry check on a JWT.
+ * Holds the claims the service needs so callers never re-parse the token.
+ */
+public record VerifiedToken(String subject,
+                            Long userId,
+                            String role,
+                            String type,
+                            Boolean isVerified,
+                            int securityVersion,
+                            String jti,
+                            String familyId,
+                            Date expiration) {
+
+    public static final String REFRESH_TYPE = "refresh";
+
+    /**
+     * Check if this is a refresh token
+     */
+    public boolean isRefreshToken() {
+        return REFRESH_TYPE.equals(type);
+    }
+
+    /**
+     * Check if the token has expired since it was verified
+     */
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+
+    /**
+     * Check that the token was issued to the given user
+     */
+    public boolean belongsTo(User user) {
+        return subject != null && subject.equals(user.getEmail())
+                && userId != null && userId.equals(user.getId());
+    }
+
+    /**
+     * Check that the token was issued to the given user
+     */
+    public boolean belongsTo(UserIdentity user) {
+        return subject != null && subject.equals(user.email())
+                && userId != null && userId.equals(user.id());
+    }
+}
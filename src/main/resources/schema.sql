@@ -16,11 +16,15 @@ CREATE TABLE IF NOT EXISTS users (
     location_lat DECIMAL(10, 8),
     location_lng DECIMAL(11, 8),
     organization_id BIGINT,
+    security_version INTEGER NOT NULL DEFAULT 0, -- bumped on deactivation, role or verification changes
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     last_login TIMESTAMP WITH TIME ZONE
 );
 
+-- Databases created before security versions existed
+ALTER TABLE users ADD COLUMN IF NOT EXISTS security_version INTEGER NOT NULL DEFAULT 0;
+
 -- Create indexes for better query performance
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_users_phone ON users(phone_number);
@@ -29,3 +33,50 @@ CREATE INDEX IF NOT EXISTS idx_users_blood_type ON users(blood_type);
 CREATE INDEX IF NOT EXISTS idx_users_location ON users(location_lat, location_lng);
 CREATE INDEX IF NOT EXISTS idx_users_organization ON users(organization_id);
 CREATE INDEX IF NOT EXISTS idx_users_active_verified ON users(is_active, is_verified);
+-- Donor search: bounding-box range scans over active, verified donors only
+CREATE INDEX IF NOT EXISTS idx_users_donor_location ON users(blood_type, location_lat, location_lng)
+    WHERE role = 'DONOR' AND is_active = true AND is_verified = true;
+
+-- Security version polling: only users whose version was ever bumped, by update time
+CREATE INDEX IF NOT EXISTS idx_users_security_version_updated ON users(updated_at)
+    WHERE security_version > 0;
+
+-- Shared JWT signing key ring; the newest key past its activation delay signs new tokens
+CREATE TABLE IF NOT EXISTS jwt_signing_keys (
+    kid VARCHAR(64) PRIMARY KEY,
+    algorithm VARCHAR(10) NOT NULL,
+    secret TEXT NOT NULL,
+    public_key TEXT,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_jwt_signing_keys_created ON jwt_signing_keys(created_at);
+
+-- Refresh token families: one row per login, rotated on every refresh
+CREATE TABLE IF NOT EXISTS refresh_token_families (
+    family_id UUID PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    current_jti UUID NOT NULL,
+    previous_jti UUID, -- the token current_jti replaced, honoured during the reuse grace window
+    rotated_at TIMESTAMP WITH TIME ZONE,
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Databases created before the reuse grace window existed
+ALTER TABLE refresh_token_families ADD COLUMN IF NOT EXISTS previous_jti UUID;
+ALTER TABLE refresh_token_families ADD COLUMN IF NOT EXISTS rotated_at TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS idx_refresh_families_user ON refresh_token_families(user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_families_expires ON refresh_token_families(expires_at);
+
+-- Access tokens revoked by logout; rows are only needed until the token expires
+CREATE TABLE IF NOT EXISTS revoked_access_tokens (
+    jti VARCHAR(64) PRIMARY KEY,
+    user_id BIGINT,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    revoked_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_access_tokens_expires ON revoked_access_tokens(expires_at);
+CREATE INDEX IF NOT EXISTS idx_revoked_access_tokens_revoked ON revoked_access_tokens(revoked_at);
@@ -0,0 +1,137 @@
+package com.vitasync.auth_service.config;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+class ReadReplicaRoutingConnectionFactoryTest {
+
+    private static final String LAG_QUERY = "SELECT seconds FROM replica_lag";
+
+    private DatabaseClient primaryClient;
+    private DatabaseClient replicaClient;
+    private ConnectionFactory primary;
+    private ConnectionFactory replica;
+
+    @BeforeEach
+    void setUp() {
+        // Two independent in-memory databases, each naming itself so a query shows where it ran
+        String suffix = UUID.randomUUID().toString();
+        primary = ConnectionFactories.get("r2dbc:h2:mem:///primary-" + suffix + ";DB_CLOSE_DELAY=-1");
+        replica = ConnectionFactories.get("r2dbc:h2:mem:///replica-" + suffix + ";DB_CLOSE_DELAY=-1");
+        primaryClient = DatabaseClient.create(primary);
+        replicaClient = DatabaseClient.create(replica);
+
+        primaryClient.sql("CREATE TABLE whoami (name VARCHAR(16))").then()
+                .then(primaryClient.sql("INSERT INTO whoami VALUES ('primary')").then())
+                .then(replicaClient.sql("CREATE TABLE whoami (name VARCHAR(16))").then())
+                .then(replicaClient.sql("INSERT INTO whoami VALUES ('replica')").then())
+                .then(replicaClient.sql("CREATE TABLE replica_lag (seconds DOUBLE)").then())
+                .then(replicaClient.sql("INSERT INTO replica_lag VALUES (0)").then())
+                .block(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void readOnly_WhenReplicaWithinLag_ShouldRouteToReplica() {
+        ReadReplicaRoutingConnectionFactory routing = routing(Duration.ofSeconds(1), LAG_QUERY);
+        routing.refreshHealth().block(Duration.ofSeconds(5));
+
+        StepVerifier.create(ReadReplicaRoutingConnectionFactory.readOnly(whoami(routing)))
+                .expectNext("replica")
+                .verifyComplete();
+    }
+
+    @Test
+    void query_WithoutReadOnlyMarker_ShouldRouteToPrimary() {
+        ReadReplicaRoutingConnectionFactory routing = routing(Duration.ofSeconds(1), LAG_QUERY);
+        routing.refreshHealth().block(Duration.ofSeconds(5));
+
+        StepVerifier.create(whoami(routing))
+                .expectNext("primary")
+                .verifyComplete();
+    }
+
+    @Test
+    void readOnly_BeforeFirstHealthCheck_ShouldFallBackToPrimary() {
+        ReadReplicaRoutingConnectionFactory routing = routing(Duration.ofSeconds(1), LAG_QUERY);
+
+        StepVerifier.create(ReadReplicaRoutingConnectionFactory.readOnly(whoami(routing)))
+                .expectNext("primary")
+                .verifyComplete();
+    }
+
+    @Test
+    void readOnly_WhenReplicaLagExceedsBound_ShouldFallBackToPrimary() {
+        ReadReplicaRoutingConnectionFactory routing = routing(Duration.ofSeconds(1), LAG_QUERY);
+        routing.refreshHealth().block(Duration.ofSeconds(5));
+
+        replicaClient.sql("UPDATE replica_lag SET seconds = 5").then().block(Duration.ofSeconds(5));
+        routing.refreshHealth().block(Duration.ofSeconds(5));
+
+        StepVerifier.create(ReadReplicaRoutingConnectionFactory.readOnly(whoami(routing)))
+                .expectNext("primary")
+                .verifyComplete();
+    }
+
+    @Test
+    void readOnly_WhenReplicaReportsInfiniteLag_ShouldFallBackToPrimary() {
+        // What the Postgres lag query reports for a standby that is not streaming
+        ReadReplicaRoutingConnectionFactory routing = routing(Duration.ofSeconds(1), LAG_QUERY);
+        replicaClient.sql("UPDATE replica_lag SET seconds = CAST('Infinity' AS DOUBLE)").then()
+                .block(Duration.ofSeconds(5));
+        routing.refreshHealth().block(Duration.ofSeconds(5));
+
+        StepVerifier.create(ReadReplicaRoutingConnectionFactory.readOnly(whoami(routing)))
+                .expectNext("primary")
+                .verifyComplete();
+    }
+
+    @Test
+    void readOnly_WhenLagQueryFails_ShouldFallBackToPrimary() {
+        ReadReplicaRoutingConnectionFactory routing = routing(Duration.ofSeconds(1), LAG_QUERY);
+        routing.refreshHealth().block(Duration.ofSeconds(5));
+
+        replicaClient.sql("DROP TABLE replica_lag").then().block(Duration.ofSeconds(5));
+        routing.refreshHealth().block(Duration.ofSeconds(5));
+
+        StepVerifier.create(ReadReplicaRoutingConnectionFactory.readOnly(whoami(routing)))
+                .expectNext("primary")
+                .verifyComplete();
+    }
+
+    @Test
+    void readOnly_WhenReplicaRecovers_ShouldRouteBackToReplica() {
+        ReadReplicaRoutingConnectionFactory routing = routing(Duration.ofSeconds(1), LAG_QUERY);
+        replicaClient.sql("UPDATE replica_lag SET seconds = 5").then().block(Duration.ofSeconds(5));
+        routing.refreshHealth().block(Duration.ofSeconds(5));
+
+        replicaClient.sql("UPDATE replica_lag SET seconds = 0.5").then().block(Duration.ofSeconds(5));
+        routing.refreshHealth().block(Duration.ofSeconds(5));
+
+        StepVerifier.create(ReadReplicaRoutingConnectionFactory.readOnly(whoami(routing)))
+                .expectNext("replica")
+                .verifyComplete();
+    }
+
+    private ReadReplicaRoutingConnectionFactory routing(Duration maxLag, String lagQuery) {
+        ReadReplicaRoutingConnectionFactory routing =
+                new ReadReplicaRoutingConnectionFactory(primary, List.of(replica), maxLag, lagQuery);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static Mono<String> whoami(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory)
+                .sql("SELECT name FROM whoami")
+                .map(row -> row.get(0, String.class))
+                .one();
+    }
+}
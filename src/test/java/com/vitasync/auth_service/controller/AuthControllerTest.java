@@ -57,6 +57,37 @@ class AuthControllerTest {
                 .expectStatus().isUnauthorized();
     }
 
+    @Test
+    void validateBatch_WithNullAndMalformedTokens_ShouldInvalidateOnlyThoseSlots() {
+        webTestClient.post()
+                .uri("/auth/validate/batch")
+                .header("Content-Type", "application/json")
+                .bodyValue("{\"tokens\": [null, \"invalid_token\", \"\"]}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.results.length()").isEqualTo(3)
+                .jsonPath("$.results[0].valid").isEqualTo(false)
+                .jsonPath("$.results[1].valid").isEqualTo(false)
+                .jsonPath("$.results[2].valid").isEqualTo(false);
+    }
+
+    @Test
+    void adminExport_WithoutApiKey_ShouldReturnUnauthorized() {
+        webTestClient.get()
+                .uri("/auth/admin/users/export")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void deactivate_WithoutApiKey_ShouldReturnUnauthorized() {
+        webTestClient.post()
+                .uri("/auth/deactivate/1")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
     @Test
     void register_WithInvalidData_ShouldReturnBadRequest() {
         String invalidRequest = "{}";
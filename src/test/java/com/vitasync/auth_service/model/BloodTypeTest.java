@@ -0,0 +1,41 @@
+package com.vitasync.auth_service.model;
+
+import org.junit.jupiter.api.Test;
+
+import static com.vitasync.auth_service.model.BloodType.Component.PLASMA;
+import static com.vitasync.auth_service.model.BloodType.Component.PLATELETS;
+import static com.vitasync.auth_service.model.BloodType.Component.RED_CELLS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloodTypeTest {
+
+    @Test
+    void redCellDonorsFollowAboAndRh() {
+        assertThat(BloodType.codes(BloodType.O_NEG.donorMask(RED_CELLS))).containsExactly("O-");
+        assertThat(BloodType.codes(BloodType.A_POS.donorMask(RED_CELLS))).containsExactly("O-", "O+", "A-", "A+");
+        assertThat(BloodType.codes(BloodType.B_NEG.donorMask(RED_CELLS))).containsExactly("O-", "B-");
+        assertThat(BloodType.codes(BloodType.AB_POS.donorMask(RED_CELLS))).hasSize(8);
+    }
+
+    @Test
+    void plasmaDonorsAreReversedAndIgnoreRh() {
+        assertThat(BloodType.codes(BloodType.O_NEG.donorMask(PLASMA))).hasSize(8);
+        assertThat(BloodType.codes(BloodType.A_POS.donorMask(PLASMA))).containsExactly("A-", "A+", "AB-", "AB+");
+        assertThat(BloodType.codes(BloodType.AB_NEG.donorMask(PLASMA))).containsExactly("AB-", "AB+");
+    }
+
+    @Test
+    void plateletDonorsArePlasmaCompatibleAndRhMatched() {
+        assertThat(BloodType.codes(BloodType.A_NEG.donorMask(PLATELETS))).containsExactly("A-", "AB-");
+        assertThat(BloodType.A_POS.canReceiveFrom(BloodType.AB_POS, PLATELETS)).isTrue();
+        assertThat(BloodType.A_POS.canReceiveFrom(BloodType.O_POS, PLATELETS)).isFalse();
+    }
+
+    @Test
+    void parsesStoredCodes() {
+        assertThat(BloodType.fromCode(" ab+ ")).isEqualTo(BloodType.AB_POS);
+        assertThat(BloodType.fromCode("O-")).isEqualTo(BloodType.O_NEG);
+        assertThat(BloodType.fromCode("C+")).isNull();
+        assertThat(BloodType.fromCode(null)).isNull();
+    }
+}
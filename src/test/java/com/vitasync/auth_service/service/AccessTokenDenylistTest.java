@@ -0,0 +1,140 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.RevokedAccessToken;
+import com.vitasync.auth_service.repository.RevokedAccessTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccessTokenDenylistTest {
+
+    private RevokedAccessTokenRepository repository;
+    private AccessTokenDenylist denylist;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RevokedAccessTokenRepository.class);
+        when(repository.insert(anyString(), anyLong(), any(LocalDateTime.class)))
+                .thenReturn(Mono.just(1));
+        when(repository.deleteExpired(anyInt())).thenReturn(Mono.just(0));
+        denylist = new AccessTokenDenylist(repository, 1000, 0.001, 1000);
+    }
+
+    @Test
+    void isRevoked_AfterRevoke_ShouldReturnTrue() {
+        StepVerifier.create(denylist.revoke(token("jti-1", 60_000))).verifyComplete();
+
+        assertThat(denylist.isRevoked("jti-1")).isTrue();
+        assertThat(denylist.isRevoked("jti-2")).isFalse();
+        assertThat(denylist.isRevoked(null)).isFalse();
+    }
+
+    @Test
+    void isRevoked_OnceTokenHasExpired_ShouldReturnFalse() {
+        StepVerifier.create(denylist.revoke(token("jti-1", -1_000))).verifyComplete();
+
+        assertThat(denylist.isRevoked("jti-1")).isFalse();
+    }
+
+    @Test
+    void sweep_WithExpiredAndLiveEntries_ShouldKeepOnlyLiveOnes() {
+        denylist.revoke(token("expired", -1_000)).block();
+        denylist.revoke(token("live", 60_000)).block();
+
+        denylist.sweep();
+
+        assertThat(denylist.isRevoked("live")).isTrue();
+        assertThat(denylist.isRevoked("expired")).isFalse();
+    }
+
+    @Test
+    void sync_AfterLoad_ShouldPollFromDatabaseWatermarkAndAdvanceIt() {
+        LocalDateTime loadStart = LocalDateTime.of(2025, 1, 1, 12, 0);
+        LocalDateTime peerRevokedAt = loadStart.plusSeconds(30);
+        when(repository.databaseTime()).thenReturn(Mono.just(loadStart));
+        when(repository.findByExpiresAtAfter(loadStart)).thenReturn(Flux.empty());
+        when(repository.findByRevokedAtAfter(loadStart.minusSeconds(5)))
+                .thenReturn(Flux.just(row("peer-jti", peerRevokedAt)));
+        when(repository.findByRevokedAtAfter(peerRevokedAt.minusSeconds(5))).thenReturn(Flux.empty());
+
+        denylist.load();
+        denylist.sync();
+        denylist.sync();
+
+        assertThat(denylist.isRevoked("peer-jti")).isTrue();
+        verify(repository).findByRevokedAtAfter(loadStart.minusSeconds(5));
+        verify(repository).findByRevokedAtAfter(peerRevokedAt.minusSeconds(5));
+    }
+
+    @Test
+    void sync_BeforeLoadSucceeded_ShouldLoadInsteadOfPolling() {
+        when(repository.databaseTime()).thenReturn(Mono.error(new RuntimeException("database down")));
+
+        denylist.sync();
+
+        verify(repository, never()).findByRevokedAtAfter(any(LocalDateTime.class));
+    }
+
+    @Test
+    void revoke_WithoutJti_ShouldFail() {
+        StepVerifier.create(denylist.revoke(token(null, 60_000)))
+                .expectErrorMessage("Invalid token: no jti")
+                .verify();
+    }
+
+    @Test
+    void bloomFilter_AfterPut_ShouldNeverReportFalseNegative() {
+        AccessTokenDenylist.BloomFilter filter = new AccessTokenDenylist.BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("jti-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void bloomFilter_AtExpectedLoad_ShouldStayNearConfiguredFalsePositiveRate() {
+        AccessTokenDenylist.BloomFilter filter = new AccessTokenDenylist.BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    private static RevokedAccessToken row(String jti, LocalDateTime revokedAt) {
+        RevokedAccessToken row = new RevokedAccessToken();
+        row.setJti(jti);
+        row.setExpiresAt(LocalDateTime.now().plusMinutes(10));
+        row.setRevokedAt(revokedAt);
+        return row;
+    }
+
+    private static VerifiedToken token(String jti, long expiresInMs) {
+        return new VerifiedToken("donor@vitasync.com", 1L, "DONOR", "access", true, 0, jti, null,
+                new Date(System.currentTimeMillis() + expiresInMs));
+    }
+}
@@ -0,0 +1,80 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.dto.RegisterRequest;
+import com.vitasync.auth_service.model.Role;
+import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceRegistrationTest {
+
+    private UserRepository userRepository;
+    private RefreshTokenStore refreshTokenStore;
+    private DonorIndex donorIndex;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        refreshTokenStore = mock(RefreshTokenStore.class);
+        donorIndex = mock(DonorIndex.class);
+        PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(1, 4, Duration.ofSeconds(1),
+                new SimpleMeterRegistry());
+
+        authService = new AuthService(userRepository, new BCryptPasswordEncoder(4), null, null, null,
+                refreshTokenStore, null, hashingExecutor, null, null, mock(UserCache.class),
+                null, donorIndex);
+    }
+
+    @Test
+    void register_WhenConcurrentInsertWinsUniqueConstraint_ShouldReportUserExists() {
+        // The pre-check passed, but another registration committed the same email first
+        when(userRepository.existsByEmailOrPhoneNumber(anyString(), anyString())).thenReturn(Mono.just(false));
+        when(userRepository.save(any(User.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("duplicate key value violates unique constraint")));
+
+        StepVerifier.create(authService.register(request()))
+                .expectErrorMessage("User already exists with this email or phone number")
+                .verify(Duration.ofSeconds(5));
+
+        verify(donorIndex, never()).update(any(User.class));
+        verify(refreshTokenStore, never()).startFamily(any());
+    }
+
+    @Test
+    void register_WhenEmailOrPhoneAlreadyTaken_ShouldReportUserExistsWithoutInserting() {
+        when(userRepository.existsByEmailOrPhoneNumber(anyString(), anyString())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(authService.register(request()))
+                .expectErrorMessage("User already exists with this email or phone number")
+                .verify(Duration.ofSeconds(5));
+
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    private static RegisterRequest request() {
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail("donor@vitasync.com");
+        request.setPhoneNumber("+1234567890");
+        request.setPassword("correct-horse-battery");
+        request.setFirstName("Ada");
+        request.setLastName("Lovelace");
+        request.setRole(Role.DONOR);
+        return request;
+    }
+}
@@ -0,0 +1,77 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.Role;
+import com.vitasync.auth_service.model.UserIdentity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceValidationTest {
+
+    private static final UserIdentity USER =
+            new UserIdentity(42L, "donor@vitasync.com", Role.DONOR, true, true, 0);
+
+    private JwtTokenService jwtTokenService;
+    private UserCache userCache;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenService = mock(JwtTokenService.class);
+        userCache = mock(UserCache.class);
+        when(userCache.findIdentityByEmail(anyString())).thenReturn(Mono.just(USER));
+        when(userCache.findIdentitiesByEmail(anyCollection()))
+                .thenReturn(Mono.just(Map.of(USER.email(), USER)));
+
+        authService = new AuthService(null, null, jwtTokenService, mock(SecurityVersionService.class),
+                mock(TokenValidationCache.class), null, mock(AccessTokenDenylist.class), null, null, null,
+                userCache, null, null);
+    }
+
+    @Test
+    void validateToken_WithRefreshToken_ShouldRejectWithoutUserLookup() {
+        StepVerifier.create(authService.validateToken(token(VerifiedToken.REFRESH_TYPE)))
+                .expectErrorMessage("Invalid token")
+                .verify(Duration.ofSeconds(5));
+
+        verify(userCache, never()).findIdentityByEmail(anyString());
+    }
+
+    @Test
+    void validateToken_WithAccessToken_ShouldResolveUser() {
+        StepVerifier.create(authService.validateToken(token("access")))
+                .expectNext(USER)
+                .verifyComplete();
+    }
+
+    @Test
+    void validateAccessTokens_WithRefreshTokenInBatch_ShouldInvalidateOnlyThatSlot() {
+        when(jwtTokenService.verify("refresh")).thenReturn(token(VerifiedToken.REFRESH_TYPE));
+        when(jwtTokenService.verify("access")).thenReturn(token("access"));
+
+        List<Optional<UserIdentity>> results =
+                authService.validateAccessTokens(List.of("refresh", "access")).block(Duration.ofSeconds(5));
+
+        assertThat(results).containsExactly(Optional.empty(), Optional.of(USER));
+    }
+
+    private static VerifiedToken token(String type) {
+        return new VerifiedToken(USER.email(), USER.id(), "DONOR", type, true, 0, "jti-" + type, null,
+                new Date(System.currentTimeMillis() + 60_000));
+    }
+}
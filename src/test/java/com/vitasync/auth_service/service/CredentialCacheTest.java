@@ -0,0 +1,115 @@
+package com.vitasync.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CredentialCacheTest {
+
+    private static final String HASH = "$2a$10$abcdefghijklmnopqrstuv";
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor hashingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        hashingExecutor = mock(PasswordHashingExecutor.class);
+        when(hashingExecutor.meanMatchesSeconds()).thenReturn(0.25);
+    }
+
+    @Test
+    void isVerified_AfterPut_ShouldHitAndCountSavedHash() {
+        CredentialCache cache = cache(true);
+        cache.put(1L, "donor@vitasync.com", "secret", HASH);
+
+        assertThat(cache.isVerified(1L, "donor@vitasync.com", "secret", HASH)).isTrue();
+        assertThat(meterRegistry.get("auth.credential-cache.saved.hashes").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("auth.credential-cache.saved.cpu").counter().count()).isEqualTo(0.25);
+    }
+
+    @Test
+    void isVerified_WithDifferentlyCasedEmail_ShouldHit() {
+        CredentialCache cache = cache(true);
+        cache.put(1L, "Donor@VitaSync.com", "secret", HASH);
+
+        assertThat(cache.isVerified(1L, " donor@vitasync.com", "secret", HASH)).isTrue();
+    }
+
+    @Test
+    void isVerified_WithWrongPassword_ShouldMiss() {
+        CredentialCache cache = cache(true);
+        cache.put(1L, "donor@vitasync.com", "secret", HASH);
+
+        assertThat(cache.isVerified(1L, "donor@vitasync.com", "Secret", HASH)).isFalse();
+    }
+
+    @Test
+    void isVerified_AfterPasswordHashChanged_ShouldMiss() {
+        CredentialCache cache = cache(true);
+        cache.put(1L, "donor@vitasync.com", "secret", HASH);
+
+        assertThat(cache.isVerified(1L, "donor@vitasync.com", "secret", HASH + "x")).isFalse();
+    }
+
+    @Test
+    void isVerified_ForAnotherUserId_ShouldMiss() {
+        CredentialCache cache = cache(true);
+        cache.put(1L, "donor@vitasync.com", "secret", HASH);
+
+        assertThat(cache.isVerified(2L, "donor@vitasync.com", "secret", HASH)).isFalse();
+    }
+
+    @Test
+    void isVerified_AfterEvictUser_ShouldMiss() {
+        CredentialCache cache = cache(true);
+        cache.put(1L, "donor@vitasync.com", "secret", HASH);
+        cache.put(2L, "other@vitasync.com", "secret", HASH);
+
+        cache.evictUser(1L);
+
+        assertThat(cache.isVerified(1L, "donor@vitasync.com", "secret", HASH)).isFalse();
+        assertThat(cache.isVerified(2L, "other@vitasync.com", "secret", HASH)).isTrue();
+    }
+
+    @Test
+    void evictUser_ShouldDropEveryCachedCredentialOfThatUser() {
+        CredentialCache cache = cache(true);
+        cache.put(1L, "donor@vitasync.com", "secret", HASH);
+        cache.put(1L, "donor@vitasync.com", "other-secret", HASH);
+
+        cache.evictUser(1L);
+
+        assertThat(cache.isVerified(1L, "donor@vitasync.com", "secret", HASH)).isFalse();
+        assertThat(cache.isVerified(1L, "donor@vitasync.com", "other-secret", HASH)).isFalse();
+    }
+
+    @Test
+    void isVerified_AfterEvictUserThenPut_ShouldHit() {
+        CredentialCache cache = cache(true);
+        cache.put(1L, "donor@vitasync.com", "secret", HASH);
+        cache.evictUser(1L);
+
+        cache.put(1L, "donor@vitasync.com", "secret", HASH);
+
+        assertThat(cache.isVerified(1L, "donor@vitasync.com", "secret", HASH)).isTrue();
+    }
+
+    @Test
+    void isVerified_WhenDisabled_ShouldAlwaysMiss() {
+        CredentialCache cache = cache(false);
+        cache.put(1L, "donor@vitasync.com", "secret", HASH);
+
+        assertThat(cache.isVerified(1L, "donor@vitasync.com", "secret", HASH)).isFalse();
+    }
+
+    private CredentialCache cache(boolean enabled) {
+        return new CredentialCache(enabled, 100, Duration.ofMinutes(10), hashingExecutor, meterRegistry);
+    }
+}
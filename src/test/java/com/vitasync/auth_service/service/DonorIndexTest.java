@@ -0,0 +1,177 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.BloodType;
+import com.vitasync.auth_service.model.DonorLocation;
+import com.vitasync.auth_service.model.Role;
+import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DonorIndexTest {
+
+    private UserRepository userRepository;
+    private DonorIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        index = new DonorIndex(userRepository, 0.25, 500);
+    }
+
+    @Test
+    void findWithinRadius_WithDonorsAtVariousDistances_ShouldReturnOnlyThoseInsideNearestFirst() {
+        index.replaceAll(List.of(
+                donor(1L, "O-", 0, 0.5),
+                donor(2L, "O-", 0, 0.1),
+                donor(3L, "O-", 0, 2.0)));
+
+        List<DonorIndex.Match> matches = index.findWithinRadius(0, 0, 100, DonorIndex.ANY_BLOOD_TYPE);
+
+        assertThat(matches).extracting(DonorIndex.Match::userId).containsExactly(2L, 1L);
+        assertThat(matches.get(0).distanceKm()).isCloseTo(11.12, within(0.05));
+        assertThat(matches.get(0).bloodType()).isEqualTo(BloodType.O_NEG);
+    }
+
+    @Test
+    void findWithinRadius_WithDonorMask_ShouldSkipOtherBloodTypes() {
+        index.replaceAll(List.of(
+                donor(1L, "O-", 0, 0.1),
+                donor(2L, "A+", 0, 0.2),
+                donor(3L, null, 0, 0.3)));
+
+        List<DonorIndex.Match> matches = index.findWithinRadius(0, 0, 100, BloodType.A_POS.bit());
+
+        assertThat(matches).extracting(DonorIndex.Match::userId).containsExactly(2L);
+    }
+
+    @Test
+    void findWithinRadius_WithAnyBloodType_ShouldIncludeDonorsWithoutKnownType() {
+        index.replaceAll(List.of(donor(1L, "unknown", 0, 0.1)));
+
+        assertThat(index.findWithinRadius(0, 0, 100, DonorIndex.ANY_BLOOD_TYPE))
+                .extracting(DonorIndex.Match::userId).containsExactly(1L);
+        assertThat(index.findWithinRadius(0, 0, 100, BloodType.O_NEG.donorMask(BloodType.Component.RED_CELLS)))
+                .isEmpty();
+    }
+
+    @Test
+    void findWithinRadius_AcrossAntimeridian_ShouldFindDonorOnOtherSide() {
+        index.replaceAll(List.of(donor(1L, "O+", 0, -179.9)));
+
+        List<DonorIndex.Match> matches = index.findWithinRadius(0, 179.9, 50, DonorIndex.ANY_BLOOD_TYPE);
+
+        assertThat(matches).extracting(DonorIndex.Match::userId).containsExactly(1L);
+        assertThat(matches.get(0).distanceKm()).isCloseTo(22.24, within(0.05));
+    }
+
+    @Test
+    void findWithinRadius_WithLimit_ShouldKeepNearest() {
+        index.replaceAll(List.of(
+                donor(1L, "O-", 0, 0.3),
+                donor(2L, "O-", 0, 0.1),
+                donor(3L, "O-", 0, 0.2)));
+
+        List<DonorIndex.Match> matches = index.findWithinRadius(0, 0, 100, DonorIndex.ANY_BLOOD_TYPE, 2);
+
+        assertThat(matches).extracting(DonorIndex.Match::userId).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void findWithinRadius_WithCursor_ShouldPageInDistanceThenIdOrder() {
+        index.replaceAll(List.of(
+                donor(4L, "O-", 0, 0.2),
+                donor(1L, "O-", 0, 0.1),
+                donor(3L, "O-", 0, 0.2),
+                donor(2L, "O-", 0, 0.3)));
+
+        List<DonorIndex.Match> first = index.findWithinRadius(0, 0, 100, DonorIndex.ANY_BLOOD_TYPE, 2);
+        DonorIndex.Match last = first.get(first.size() - 1);
+        List<DonorIndex.Match> second = index.findWithinRadius(0, 0, 100, DonorIndex.ANY_BLOOD_TYPE, 2,
+                last.distanceKm(), last.userId());
+        DonorIndex.Match end = second.get(second.size() - 1);
+
+        assertThat(first).extracting(DonorIndex.Match::userId).containsExactly(1L, 3L);
+        assertThat(second).extracting(DonorIndex.Match::userId).containsExactly(4L, 2L);
+        assertThat(index.findWithinRadius(0, 0, 100, DonorIndex.ANY_BLOOD_TYPE, 2, end.distanceKm(), end.userId()))
+                .isEmpty();
+    }
+
+    @Test
+    void findNearest_WithDonorsBeyondFirstCell_ShouldWidenUntilKFound() {
+        index.replaceAll(List.of(
+                donor(1L, "O-", 0, 3.0),
+                donor(2L, "O-", 0, 1.0),
+                donor(3L, "O-", 0, 2.0)));
+
+        List<DonorIndex.Match> matches = index.findNearest(0, 0, 2, DonorIndex.ANY_BLOOD_TYPE);
+
+        assertThat(matches).extracting(DonorIndex.Match::userId).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void findNearest_WithFewerDonorsThanK_ShouldReturnAllWithinMaxRadius() {
+        index.replaceAll(List.of(
+                donor(1L, "O-", 0, 1.0),
+                donor(2L, "O-", 0, 10.0)));
+
+        List<DonorIndex.Match> matches = index.findNearest(0, 0, 5, DonorIndex.ANY_BLOOD_TYPE);
+
+        // 10 degrees of longitude at the equator is about 1112 km, beyond the 500 km cap
+        assertThat(matches).extracting(DonorIndex.Match::userId).containsExactly(1L);
+    }
+
+    @Test
+    void update_WhenDonorMovesOrBecomesIneligible_ShouldReindexOrDrop() {
+        index.replaceAll(List.of(donor(1L, "O-", 0, 0.1)));
+
+        User moved = user(1L, 0, 5.0, true);
+        index.update(moved);
+        assertThat(index.findWithinRadius(0, 0, 100, DonorIndex.ANY_BLOOD_TYPE)).isEmpty();
+        assertThat(index.findWithinRadius(0, 5.0, 100, DonorIndex.ANY_BLOOD_TYPE)).hasSize(1);
+
+        index.update(user(1L, 0, 5.0, false));
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void reload_WithLocalUpdatesDuringQuery_ShouldReplayThemOntoRebuiltIndex() {
+        Sinks.Many<DonorLocation> query = Sinks.many().unicast().onBackpressureBuffer();
+        when(userRepository.findDonorLocations()).thenReturn(query.asFlux());
+        index.replaceAll(List.of(donor(1L, "O-", 0, 0.1)));
+
+        index.reload();
+        // Written locally after the reload query read its rows
+        index.put(donor(2L, "O-", 0, 0.2));
+        index.remove(1L);
+        query.tryEmitNext(donor(1L, "O-", 0, 0.1));
+        query.tryEmitComplete();
+
+        assertThat(index.findWithinRadius(0, 0, 100, DonorIndex.ANY_BLOOD_TYPE))
+                .extracting(DonorIndex.Match::userId).containsExactly(2L);
+    }
+
+    private static DonorLocation donor(Long id, String bloodType, double lat, double lng) {
+        return new DonorLocation(id, bloodType, lat, lng);
+    }
+
+    private static User user(Long id, double lat, double lng, boolean active) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(Role.DONOR);
+        user.setBloodType("O-");
+        user.setIsActive(active);
+        user.setIsVerified(true);
+        user.setLocationLat(lat);
+        user.setLocationLng(lng);
+        return user;
+    }
+}
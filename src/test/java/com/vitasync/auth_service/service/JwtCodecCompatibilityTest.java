@@ -0,0 +1,110 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.Role;
+import com.vitasync.auth_service.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtCodecCompatibilityTest {
+
+    private JwtSigningKeys signingKeys;
+    private JwtTokenService jjwtService;
+    private JwtTokenService fastService;
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        signingKeys = new JwtSigningKeys(null, null, "test-secret-key-for-testing-purposes-only", "HS256", "", "", "",
+                Duration.ofMinutes(2), Duration.ofDays(8), Duration.ZERO, 60000L, "");
+        signingKeys.init();
+
+        FastJwtCodec fastJwtCodec = new FastJwtCodec(signingKeys);
+        jjwtService = tokenService(signingKeys, fastJwtCodec, "jjwt", 86400000L);
+        fastService = tokenService(signingKeys, fastJwtCodec, "fast", 86400000L);
+
+        user = new User("donor@vitasync.com", "+1234567890", "hash", "Zoë", "O\"Brien", Role.DONOR);
+        user.setId(42L);
+        user.setIsVerified(true);
+        user.setBloodType("O-");
+        user.setOrganizationId(7L);
+        user.setSecurityVersion(3);
+    }
+
+    @Test
+    void fastAccessToken_ShouldVerifyWithJjwt() {
+        String token = fastService.generateToken(user);
+
+        VerifiedToken verified = jjwtService.verify(token);
+
+        assertThat(verified.subject()).isEqualTo("donor@vitasync.com");
+        assertThat(verified.userId()).isEqualTo(42L);
+        assertThat(verified.role()).isEqualTo("DONOR");
+        assertThat(verified.isVerified()).isTrue();
+        assertThat(verified.securityVersion()).isEqualTo(3);
+        assertThat(verified.isRefreshToken()).isFalse();
+        assertThat(jjwtService.extractClaim(token, claims -> claims.get("firstName", String.class))).isEqualTo("Zoë");
+        assertThat(jjwtService.extractClaim(token, claims -> claims.get("lastName", String.class))).isEqualTo("O\"Brien");
+        assertThat(jjwtService.extractClaim(token, claims -> claims.get("bloodType", String.class))).isEqualTo("O-");
+        assertThat(jjwtService.extractClaim(token, claims -> claims.get("organizationId", Long.class))).isEqualTo(7L);
+    }
+
+    @Test
+    void jjwtAccessToken_ShouldVerifyWithFastCodec() {
+        String token = jjwtService.generateToken(user);
+
+        assertThat(fastService.verify(token)).isEqualTo(jjwtService.verify(token));
+    }
+
+    @Test
+    void refreshTokens_ShouldRoundTripAcrossCodecs() {
+        RefreshGrant grant = new RefreshGrant(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        VerifiedToken fromFast = jjwtService.verify(fastService.generateRefreshToken(user, grant));
+        VerifiedToken fromJjwt = fastService.verify(jjwtService.generateRefreshToken(user, grant));
+
+        assertThat(fromFast.isRefreshToken()).isTrue();
+        assertThat(fromJjwt.isRefreshToken()).isTrue();
+        assertThat(fromFast.userId()).isEqualTo(fromJjwt.userId());
+        assertThat(fromFast.subject()).isEqualTo(fromJjwt.subject());
+        assertThat(fromFast.jti()).isEqualTo(grant.jti()).isEqualTo(fromJjwt.jti());
+        assertThat(fromFast.familyId()).isEqualTo(grant.familyId()).isEqualTo(fromJjwt.familyId());
+    }
+
+    @Test
+    void tamperedToken_ShouldBeRejectedByBothCodecs() {
+        String token = fastService.generateToken(user);
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char first = token.charAt(signatureStart);
+        String tampered = token.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A')
+                + token.substring(signatureStart + 1);
+
+        assertThatThrownBy(() -> fastService.verify(tampered)).hasMessageContaining("Invalid token");
+        assertThatThrownBy(() -> jjwtService.verify(tampered)).hasMessageContaining("Invalid token");
+    }
+
+    @Test
+    void expiredToken_ShouldBeRejectedByBothCodecs() {
+        String expired = tokenService(signingKeys, new FastJwtCodec(signingKeys), "fast", -5000L).generateToken(user);
+
+        assertThatThrownBy(() -> fastService.verify(expired)).hasMessageContaining("Invalid token");
+        assertThatThrownBy(() -> jjwtService.verify(expired)).hasMessageContaining("Invalid token");
+    }
+
+    @Test
+    void malformedToken_ShouldBeRejected() {
+        assertThatThrownBy(() -> fastService.verify("invalid_token")).hasMessageContaining("Invalid token");
+        assertThatThrownBy(() -> fastService.verify("a.b.c.d")).hasMessageContaining("Invalid token");
+    }
+
+    private static JwtTokenService tokenService(JwtSigningKeys signingKeys, FastJwtCodec fastJwtCodec,
+                                                String codec, long expirationMs) {
+        JwtTokenService service = new JwtTokenService(signingKeys, fastJwtCodec, expirationMs, codec);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,141 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LastLoginRecorderTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.updateLastLogins(any(Long[].class), any(LocalDateTime[].class)))
+                .thenAnswer(invocation -> Mono.just(((Long[]) invocation.getArgument(0)).length));
+    }
+
+    @Test
+    void flush_WithRepeatedLogins_ShouldWriteNewestStampPerUserOnce() {
+        LastLoginRecorder recorder = recorder(500, 10_000, 100_000);
+        recorder.record(1L, NOW);
+        recorder.record(1L, NOW.plusMinutes(5));
+        recorder.record(1L, NOW.plusMinutes(2));
+        recorder.record(2L, NOW);
+
+        recorder.flush();
+
+        ArgumentCaptor<Long[]> ids = ArgumentCaptor.forClass(Long[].class);
+        ArgumentCaptor<LocalDateTime[]> times = ArgumentCaptor.forClass(LocalDateTime[].class);
+        verify(userRepository).updateLastLogins(ids.capture(), times.capture());
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(1L, 2L);
+        for (int i = 0; i < ids.getValue().length; i++) {
+            assertThat(times.getValue()[i]).isEqualTo(ids.getValue()[i] == 1L ? NOW.plusMinutes(5) : NOW);
+        }
+    }
+
+    @Test
+    void flush_WithMoreStampsThanBatchSize_ShouldWriteInBatches() {
+        LastLoginRecorder recorder = recorder(2, 10_000, 100_000);
+        for (long id = 1; id <= 5; id++) {
+            recorder.record(id, NOW);
+        }
+
+        recorder.flush();
+
+        verify(userRepository, times(3)).updateLastLogins(any(Long[].class), any(LocalDateTime[].class));
+    }
+
+    @Test
+    void flush_WithNothingPending_ShouldNotQuery() {
+        LastLoginRecorder recorder = recorder(500, 10_000, 100_000);
+
+        recorder.flush();
+
+        verify(userRepository, never()).updateLastLogins(any(Long[].class), any(LocalDateTime[].class));
+    }
+
+    @Test
+    void flush_AfterFailedBatch_ShouldRetryItOnNextFlush() {
+        when(userRepository.updateLastLogins(any(Long[].class), any(LocalDateTime[].class)))
+                .thenReturn(Mono.error(new RuntimeException("database down")))
+                .thenReturn(Mono.just(1));
+        LastLoginRecorder recorder = recorder(500, 10_000, 100_000);
+        recorder.record(1L, NOW);
+
+        recorder.flush();
+        recorder.flush();
+
+        verify(userRepository, times(2)).updateLastLogins(any(Long[].class), any(LocalDateTime[].class));
+    }
+
+    @Test
+    void record_WhenPendingReachesLimit_ShouldFlushEarly() {
+        LastLoginRecorder recorder = recorder(500, 2, 100_000);
+
+        recorder.record(1L, NOW);
+        recorder.record(2L, NOW);
+
+        verify(userRepository).updateLastLogins(any(Long[].class), any(LocalDateTime[].class));
+    }
+
+    @Test
+    void record_WhenBufferFull_ShouldDropNewUsersButKeepUpdatingBufferedOnes() {
+        LastLoginRecorder recorder = recorder(500, 10_000, 2);
+        recorder.record(1L, NOW);
+        recorder.record(2L, NOW);
+        recorder.record(3L, NOW);
+        recorder.record(1L, NOW.plusMinutes(1));
+
+        recorder.flush();
+
+        ArgumentCaptor<Long[]> ids = ArgumentCaptor.forClass(Long[].class);
+        verify(userRepository).updateLastLogins(ids.capture(), any(LocalDateTime[].class));
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void flushOnShutdown_WhileFlushRunning_ShouldWaitForItAndWriteLaterStamps() {
+        Sinks.One<Integer> firstWrite = Sinks.one();
+        List<Long[]> written = new ArrayList<>();
+        when(userRepository.updateLastLogins(any(Long[].class), any(LocalDateTime[].class)))
+                .thenAnswer(invocation -> {
+                    written.add(invocation.getArgument(0));
+                    return written.size() == 1 ? firstWrite.asMono() : Mono.just(1);
+                });
+        LastLoginRecorder recorder = recorder(500, 10_000, 100_000);
+        recorder.record(1L, NOW);
+        recorder.flush();
+        recorder.record(2L, NOW);
+
+        Schedulers.parallel().schedule(() -> firstWrite.tryEmitValue(1), 100, TimeUnit.MILLISECONDS);
+        recorder.flushOnShutdown();
+
+        assertThat(written).hasSize(2);
+        assertThat(written.get(1)).containsExactly(2L);
+    }
+
+    private LastLoginRecorder recorder(int batchSize, int maxPending, int maxBuffered) {
+        return new LastLoginRecorder(userRepository, batchSize, maxPending, maxBuffered, Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,158 @@
+package com.vitasync.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void acquire_OverAccountLimit_ShouldThrowWithRetryAfter() {
+        LoginThrottle throttle = throttle(true, 3, 100);
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("donor@vitasync.com", "10.0.0." + i);
+        }
+
+        assertThatThrownBy(() -> throttle.acquire("donor@vitasync.com", "10.0.0.9"))
+                .isInstanceOfSatisfying(LoginThrottle.ThrottledException.class,
+                        error -> assertThat(error.getRetryAfter()).isPositive());
+        assertThat(meterRegistry.get("auth.login.throttled").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void acquire_WithDifferentlyCasedEmail_ShouldShareAccountWindow() {
+        LoginThrottle throttle = throttle(true, 2, 100);
+        throttle.acquire("Donor@VitaSync.com", "10.0.0.1");
+        throttle.acquire(" donor@vitasync.com ", "10.0.0.2");
+
+        assertThatThrownBy(() -> throttle.acquire("donor@vitasync.com", "10.0.0.3"))
+                .isInstanceOf(LoginThrottle.ThrottledException.class);
+    }
+
+    @Test
+    void acquire_OverIpLimit_ShouldRejectEveryAccountFromThatIp() {
+        LoginThrottle throttle = throttle(true, 100, 2);
+        throttle.acquire("a@vitasync.com", "10.0.0.1");
+        throttle.acquire("b@vitasync.com", "10.0.0.1");
+
+        assertThatThrownBy(() -> throttle.acquire("c@vitasync.com", "10.0.0.1"))
+                .isInstanceOf(LoginThrottle.ThrottledException.class);
+        assertThatCode(() -> throttle.acquire("c@vitasync.com", "10.0.0.2")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void reset_AfterSuccessfulLogin_ShouldClearAccountWindow() {
+        LoginThrottle throttle = throttle(true, 2, 100);
+        throttle.acquire("donor@vitasync.com", "10.0.0.1");
+        throttle.acquire("donor@vitasync.com", "10.0.0.1");
+
+        throttle.reset("DONOR@vitasync.com");
+
+        assertThatCode(() -> throttle.acquire("donor@vitasync.com", "10.0.0.1")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void acquire_WhenDisabled_ShouldNeverThrow() {
+        LoginThrottle throttle = throttle(false, 1, 1);
+
+        assertThatCode(() -> {
+            for (int i = 0; i < 10; i++) {
+                throttle.acquire("donor@vitasync.com", "10.0.0.1");
+            }
+        }).doesNotThrowAnyException();
+    }
+
+    @Test
+    void slidingWindow_AtLimit_ShouldRejectUntilWindowEnds() {
+        LoginThrottle.SlidingWindow window = new LoginThrottle.SlidingWindow();
+        for (int i = 0; i < 10; i++) {
+            assertThat(window.tryAcquire(500, 1000, 10)).isZero();
+        }
+
+        assertThat(window.tryAcquire(500, 1000, 10)).isEqualTo(500);
+    }
+
+    @Test
+    void slidingWindow_InNextWindow_ShouldWeightPreviousCountByOverlap() {
+        LoginThrottle.SlidingWindow window = new LoginThrottle.SlidingWindow();
+        for (int i = 0; i < 10; i++) {
+            window.tryAcquire(900, 1000, 10);
+        }
+
+        // Halfway through the next window the previous ten still count as five
+        int allowed = 0;
+        while (window.tryAcquire(1500, 1000, 10) == 0) {
+            allowed++;
+        }
+        assertThat(allowed).isEqualTo(5);
+    }
+
+    @Test
+    void slidingWindow_AfterIdleWindow_ShouldForgetOldAttempts() {
+        LoginThrottle.SlidingWindow window = new LoginThrottle.SlidingWindow();
+        for (int i = 0; i < 10; i++) {
+            window.tryAcquire(900, 1000, 10);
+        }
+
+        // Two windows later the old current window is no longer adjacent
+        int allowed = 0;
+        while (window.tryAcquire(2100, 1000, 10) == 0) {
+            allowed++;
+        }
+        assertThat(allowed).isEqualTo(10);
+    }
+
+    @Test
+    void clientIp_FromUntrustedRemote_ShouldIgnoreForwardedFor() throws Exception {
+        LoginThrottle throttle = throttle(List.of("10.0.0.0/8"));
+
+        assertThat(throttle.clientIp(InetAddress.getByName("203.0.113.5"), "198.51.100.1"))
+                .isEqualTo("203.0.113.5");
+    }
+
+    @Test
+    void clientIp_FromTrustedProxy_ShouldUseNearestUntrustedHop() throws Exception {
+        LoginThrottle throttle = throttle(List.of("10.0.0.0/8", "192.168.1.7"));
+
+        // The leftmost hop is client-supplied and must not choose the key
+        assertThat(throttle.clientIp(InetAddress.getByName("10.1.2.3"), "1.1.1.1, 198.51.100.1, 192.168.1.7"))
+                .isEqualTo("198.51.100.1");
+        assertThat(throttle.clientIp(InetAddress.getByName("10.1.2.3"), ""))
+                .isEqualTo("10.1.2.3");
+    }
+
+    @Test
+    void clientIp_WhenEveryHopIsTrusted_ShouldUseOutermostHop() throws Exception {
+        LoginThrottle throttle = throttle(List.of("10.0.0.0/8"));
+
+        assertThat(throttle.clientIp(InetAddress.getByName("10.1.2.3"), "10.9.9.9, 10.4.4.4"))
+                .isEqualTo("10.9.9.9");
+    }
+
+    @Test
+    void constructor_WithHostNameAsTrustedProxy_ShouldFail() {
+        assertThatThrownBy(() -> throttle(List.of("proxy.internal")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> throttle(List.of("10.0.0.0/33")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private LoginThrottle throttle(boolean enabled, int accountMaxAttempts, int ipMaxAttempts) {
+        return new LoginThrottle(enabled, accountMaxAttempts, Duration.ofMinutes(15),
+                ipMaxAttempts, Duration.ofMinutes(15), 1000, List.of(), meterRegistry);
+    }
+
+    private LoginThrottle throttle(List<String> trustedProxies) {
+        return new LoginThrottle(true, 10, Duration.ofMinutes(15),
+                100, Duration.ofMinutes(1), 1000, trustedProxies, meterRegistry);
+    }
+}
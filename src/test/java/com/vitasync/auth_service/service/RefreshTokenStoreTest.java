@@ -0,0 +1,139 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.repository.RefreshTokenFamilyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenStoreTest {
+
+    private RefreshTokenFamilyRepository repository;
+    private JwtTokenService jwtTokenService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RefreshTokenFamilyRepository.class);
+        jwtTokenService = mock(JwtTokenService.class);
+        when(jwtTokenService.getRefreshTokenExpirationTime()).thenReturn(Duration.ofDays(7).toMillis());
+        when(repository.insert(any(UUID.class), anyLong(), any(UUID.class), any(LocalDateTime.class)))
+                .thenReturn(Mono.just(1));
+        when(repository.revoke(any(UUID.class))).thenReturn(Mono.just(1));
+        when(repository.revokeByUserId(anyLong())).thenReturn(Mono.just(1));
+    }
+
+    @Test
+    void rotate_WithCurrentToken_ShouldIssueNextMemberOfFamily() {
+        RefreshTokenStore store = store(Duration.ofSeconds(10));
+        RefreshGrant started = store.startFamily(1L).block();
+        when(repository.rotate(eq(UUID.fromString(started.familyId())), eq(UUID.fromString(started.jti())),
+                any(UUID.class), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Mono.just(1));
+
+        StepVerifier.create(store.rotate(token(started)))
+                .assertNext(next -> {
+                    assertThat(next.familyId()).isEqualTo(started.familyId());
+                    assertThat(next.jti()).isNotEqualTo(started.jti());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void rotate_WithJustReplacedTokenWithinGrace_ShouldReturnCurrentMemberWithoutRevoking() {
+        RefreshTokenStore store = store(Duration.ofSeconds(10));
+        RefreshGrant started = store.startFamily(1L).block();
+        UUID familyId = UUID.fromString(started.familyId());
+        UUID current = UUID.randomUUID();
+        when(repository.rotate(eq(familyId), any(UUID.class), any(UUID.class), any(LocalDateTime.class),
+                any(LocalDateTime.class)))
+                .thenReturn(Mono.just(0));
+        when(repository.findCurrentJtiRotatedFrom(eq(familyId), eq(UUID.fromString(started.jti())),
+                any(LocalDateTime.class)))
+                .thenReturn(Mono.just(current));
+
+        StepVerifier.create(store.rotate(token(started)))
+                .assertNext(next -> assertThat(next.jti()).isEqualTo(current.toString()))
+                .verifyComplete();
+        verify(repository, never()).revoke(any(UUID.class));
+    }
+
+    @Test
+    void rotate_WithStaleTokenOutsideGrace_ShouldRevokeFamily() {
+        RefreshTokenStore store = store(Duration.ofSeconds(10));
+        RefreshGrant started = store.startFamily(1L).block();
+        UUID familyId = UUID.fromString(started.familyId());
+        when(repository.rotate(eq(familyId), any(UUID.class), any(UUID.class), any(LocalDateTime.class),
+                any(LocalDateTime.class)))
+                .thenReturn(Mono.just(0));
+        when(repository.findCurrentJtiRotatedFrom(eq(familyId), any(UUID.class), any(LocalDateTime.class)))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(store.rotate(token(started)))
+                .expectErrorMessage("Invalid refresh token")
+                .verify();
+        verify(repository).revoke(familyId);
+    }
+
+    @Test
+    void rotate_WithStaleTokenAndNoGrace_ShouldRevokeWithoutLookingForReplacement() {
+        RefreshTokenStore store = store(Duration.ZERO);
+        RefreshGrant started = store.startFamily(1L).block();
+        when(repository.rotate(any(UUID.class), any(UUID.class), any(UUID.class), any(LocalDateTime.class),
+                any(LocalDateTime.class)))
+                .thenReturn(Mono.just(0));
+
+        StepVerifier.create(store.rotate(token(started)))
+                .expectErrorMessage("Invalid refresh token")
+                .verify();
+        verify(repository, never()).findCurrentJtiRotatedFrom(any(UUID.class), any(UUID.class),
+                any(LocalDateTime.class));
+        verify(repository).revoke(UUID.fromString(started.familyId()));
+    }
+
+    @Test
+    void rotate_WithoutFamilyOrJti_ShouldRejectWithoutQuery() {
+        RefreshTokenStore store = store(Duration.ofSeconds(10));
+
+        StepVerifier.create(store.rotate(token(new RefreshGrant(null, UUID.randomUUID().toString()))))
+                .expectErrorMessage("Invalid refresh token")
+                .verify();
+        StepVerifier.create(store.rotate(token(new RefreshGrant(UUID.randomUUID().toString(), null))))
+                .expectErrorMessage("Invalid refresh token")
+                .verify();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void revokeAllForUser_ShouldRevokeInDatabaseOnly() {
+        RefreshTokenStore store = store(Duration.ofSeconds(10));
+
+        store.revokeAllForUser(1L).block();
+
+        verify(repository).revokeByUserId(1L);
+        verify(repository, never()).revoke(any(UUID.class));
+    }
+
+    private RefreshTokenStore store(Duration reuseGrace) {
+        return new RefreshTokenStore(repository, jwtTokenService, 1000, reuseGrace);
+    }
+
+    private static VerifiedToken token(RefreshGrant grant) {
+        return new VerifiedToken("donor@vitasync.com", 1L, "DONOR", VerifiedToken.REFRESH_TYPE, true, 0,
+                grant.jti(), grant.familyId(), new Date(System.currentTimeMillis() + 60_000));
+    }
+}
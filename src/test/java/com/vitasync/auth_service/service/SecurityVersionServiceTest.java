@@ -0,0 +1,59 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.UserSecurityVersion;
+import com.vitasync.auth_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SecurityVersionServiceTest {
+
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+    }
+
+    @Test
+    void refresh_AfterFullLoad_ShouldPollOnlyRowsUpdatedSinceWatermark() {
+        when(userRepository.findBumpedSecurityVersions())
+                .thenReturn(Flux.just(new UserSecurityVersion(1L, 2, UPDATED)));
+        when(userRepository.findBumpedSecurityVersionsUpdatedAfter(UPDATED.minusMinutes(1)))
+                .thenReturn(Flux.just(new UserSecurityVersion(2L, 1, UPDATED.plusSeconds(10))));
+        SecurityVersionService service = new SecurityVersionService(userRepository, Duration.ofMinutes(10));
+
+        service.refresh();
+        service.refresh();
+
+        assertThat(service.currentVersion(1L)).isEqualTo(2);
+        assertThat(service.currentVersion(2L)).isEqualTo(1);
+        assertThat(service.currentVersion(3L)).isZero();
+        verify(userRepository, times(1)).findBumpedSecurityVersions();
+    }
+
+    @Test
+    void refresh_OnceFullRefreshIntervalPassed_ShouldReloadEverything() {
+        when(userRepository.findBumpedSecurityVersions())
+                .thenReturn(Flux.just(new UserSecurityVersion(1L, 2, UPDATED)));
+        SecurityVersionService service = new SecurityVersionService(userRepository, Duration.ZERO);
+
+        service.refresh();
+        service.refresh();
+
+        verify(userRepository, times(2)).findBumpedSecurityVersions();
+        verify(userRepository, times(0)).findBumpedSecurityVersionsUpdatedAfter(any(LocalDateTime.class));
+    }
+}
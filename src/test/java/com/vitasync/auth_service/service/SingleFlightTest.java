@@ -0,0 +1,66 @@
+package com.vitasync.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight<String, String> singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", meterRegistry);
+    }
+
+    @Test
+    void concurrentCallersShareOneQuery() {
+        AtomicInteger queries = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+
+        Mono<String> first = singleFlight.execute("a", () -> {
+            queries.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<String> second = singleFlight.execute("a", () -> {
+            queries.incrementAndGet();
+            return Mono.just("other");
+        });
+
+        String[] values = new String[2];
+        first.subscribe(value -> values[0] = value);
+        second.subscribe(value -> values[1] = value);
+        result.tryEmitValue("user");
+
+        assertThat(values).containsExactly("user", "user");
+        assertThat(queries).hasValue(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+        assertThat(meterRegistry.get("auth.singleflight.coalesced").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void entryIsRemovedAfterErrorSoTheNextCallRetries() {
+        AtomicInteger queries = new AtomicInteger();
+
+        singleFlight.execute("a", () -> {
+            queries.incrementAndGet();
+            return Mono.<String>error(new RuntimeException("boom"));
+        }).onErrorResume(error -> Mono.empty()).block();
+        String retried = singleFlight.execute("a", () -> {
+            queries.incrementAndGet();
+            return Mono.just("user");
+        }).block();
+
+        assertThat(retried).isEqualTo("user");
+        assertThat(queries).hasValue(2);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+}
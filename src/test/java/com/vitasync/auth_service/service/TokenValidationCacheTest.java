@@ -0,0 +1,87 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.Role;
+import com.vitasync.auth_service.model.UserIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenValidationCacheTest {
+
+    @Test
+    void get_AfterPut_ShouldReturnCachedValidation() {
+        TokenValidationCache cache = cache(true, Duration.ofMinutes(5));
+        VerifiedToken verified = token(1L, 60_000);
+        UserIdentity user = user(1L);
+
+        cache.put("token-a", verified, user);
+
+        TokenValidationCache.Validation validation = cache.get("token-a");
+        assertThat(validation).isNotNull();
+        assertThat(validation.token()).isEqualTo(verified);
+        assertThat(validation.user()).isEqualTo(user);
+        assertThat(cache.get("token-b")).isNull();
+    }
+
+    @Test
+    void get_ForTokenAlreadyExpired_ShouldMiss() {
+        TokenValidationCache cache = cache(true, Duration.ofMinutes(5));
+
+        cache.put("token-a", token(1L, -1_000), user(1L));
+
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    @Test
+    void evictUser_WithSeveralTokens_ShouldDropOnlyThatUsersTokens() {
+        TokenValidationCache cache = cache(true, Duration.ofMinutes(5));
+        cache.put("token-a", token(1L, 60_000), user(1L));
+        cache.put("token-b", token(1L, 60_000), user(1L));
+        cache.put("token-c", token(2L, 60_000), user(2L));
+
+        cache.evictUser(1L);
+
+        assertThat(cache.get("token-a")).isNull();
+        assertThat(cache.get("token-b")).isNull();
+        assertThat(cache.get("token-c")).isNotNull();
+    }
+
+    @Test
+    void evict_WithSingleToken_ShouldLeaveOthers() {
+        TokenValidationCache cache = cache(true, Duration.ofMinutes(5));
+        cache.put("token-a", token(1L, 60_000), user(1L));
+        cache.put("token-b", token(1L, 60_000), user(1L));
+
+        cache.evict("token-a");
+
+        assertThat(cache.get("token-a")).isNull();
+        assertThat(cache.get("token-b")).isNotNull();
+    }
+
+    @Test
+    void get_WhenDisabled_ShouldAlwaysMiss() {
+        TokenValidationCache cache = cache(false, Duration.ofMinutes(5));
+
+        cache.put("token-a", token(1L, 60_000), user(1L));
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    private static TokenValidationCache cache(boolean enabled, Duration ttl) {
+        return new TokenValidationCache(enabled, 100, ttl, new SimpleMeterRegistry());
+    }
+
+    private static VerifiedToken token(Long userId, long expiresInMs) {
+        return new VerifiedToken("user" + userId + "@vitasync.com", userId, "DONOR", "access", true, 0,
+                "jti-" + userId, null, new Date(System.currentTimeMillis() + expiresInMs));
+    }
+
+    private static UserIdentity user(Long id) {
+        return new UserIdentity(id, "user" + id + "@vitasync.com", Role.DONOR, true, true, 0);
+    }
+}
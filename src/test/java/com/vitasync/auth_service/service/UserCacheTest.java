@@ -0,0 +1,200 @@
+package com.vitasync.auth_service.service;
+
+import com.vitasync.auth_service.model.Role;
+import com.vitasync.auth_service.model.User;
+import com.vitasync.auth_service.model.UserIdentity;
+import com.vitasync.auth_service.model.UserSummary;
+import com.vitasync.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCacheTest {
+
+    private UserRepository userRepository;
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userCache = new UserCache(userRepository, true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void findById_WhenCached_ShouldNotQueryAgain() {
+        when(userRepository.findById(1L)).thenReturn(Mono.just(user(1L, "donor@vitasync.com")));
+
+        userCache.findById(1L).block();
+        User second = userCache.findById(1L).block();
+
+        assertThat(second.getEmail()).isEqualTo("donor@vitasync.com");
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void findByEmail_AfterLoadById_ShouldServeSameEntry() {
+        when(userRepository.findById(1L)).thenReturn(Mono.just(user(1L, "donor@vitasync.com")));
+
+        userCache.findById(1L).block();
+        User byEmail = userCache.findByEmail("donor@vitasync.com").block();
+
+        assertThat(byEmail.getId()).isEqualTo(1L);
+        verify(userRepository, never()).findByEmail("donor@vitasync.com");
+    }
+
+    @Test
+    void findById_ShouldOmitPasswordHashButCredentialLookupShouldKeepIt() {
+        when(userRepository.findByEmail("donor@vitasync.com")).thenReturn(Mono.just(user(1L, "donor@vitasync.com")));
+
+        User withCredentials = userCache.findByEmailWithCredentials("donor@vitasync.com").block();
+        User withoutCredentials = userCache.findById(1L).block();
+
+        assertThat(withCredentials.getPasswordHash()).isEqualTo("hash");
+        assertThat(withoutCredentials.getPasswordHash()).isNull();
+    }
+
+    @Test
+    void findById_AfterCallerMutatesResult_ShouldReturnUnchangedCopy() {
+        when(userRepository.findById(1L)).thenReturn(Mono.just(user(1L, "donor@vitasync.com")));
+
+        userCache.findById(1L).block().setFirstName("Changed");
+
+        assertThat(userCache.findById(1L).block().getFirstName()).isEqualTo("Ada");
+    }
+
+    @Test
+    void invalidate_AfterWrite_ShouldMakeNextLookupsQueryAgain() {
+        User user = user(1L, "donor@vitasync.com");
+        when(userRepository.findById(1L)).thenReturn(Mono.just(user));
+        when(userRepository.findByEmail("donor@vitasync.com")).thenReturn(Mono.just(user));
+        userCache.findById(1L).block();
+
+        userCache.invalidate(user);
+        userCache.findById(1L).block();
+        userCache.findByEmail("donor@vitasync.com").block();
+
+        verify(userRepository, times(2)).findById(1L);
+        verify(userRepository, times(1)).findByEmail("donor@vitasync.com");
+    }
+
+    @Test
+    void findIdentityByEmail_OnMiss_ShouldFillProjectionCacheUntilInvalidated() {
+        UserIdentity identity = new UserIdentity(1L, "donor@vitasync.com", Role.DONOR, true, true, 0);
+        when(userRepository.findIdentityByEmail("donor@vitasync.com")).thenReturn(Mono.just(identity));
+
+        userCache.findIdentityByEmail("donor@vitasync.com").block();
+        assertThat(userCache.findIdentityByEmail("donor@vitasync.com").block()).isEqualTo(identity);
+        verify(userRepository, times(1)).findIdentityByEmail("donor@vitasync.com");
+
+        userCache.invalidate(user(1L, "donor@vitasync.com"));
+        userCache.findIdentityByEmail("donor@vitasync.com").block();
+        verify(userRepository, times(2)).findIdentityByEmail("donor@vitasync.com");
+    }
+
+    @Test
+    void findSummariesById_WithSomeCached_ShouldOnlyQueryMisses() {
+        when(userRepository.findById(1L)).thenReturn(Mono.just(user(1L, "a@vitasync.com")));
+        when(userRepository.findSummariesByIdIn(anyCollection()))
+                .thenReturn(Flux.just(UserSummary.of(user(2L, "b@vitasync.com"))));
+        userCache.findById(1L).block();
+
+        Map<Long, UserSummary> summaries = userCache.findSummariesById(List.of(1L, 2L)).block();
+
+        assertThat(summaries).containsOnlyKeys(1L, 2L);
+        verify(userRepository).findSummariesByIdIn(Set.of(2L));
+    }
+
+    @Test
+    void findSummariesById_AfterInvalidate_ShouldQueryAgain() {
+        User user = user(2L, "b@vitasync.com");
+        when(userRepository.findSummariesByIdIn(anyCollection())).thenReturn(Flux.just(UserSummary.of(user)));
+        userCache.findSummariesById(List.of(2L)).block();
+        userCache.findSummariesById(List.of(2L)).block();
+        verify(userRepository, times(1)).findSummariesByIdIn(anyCollection());
+
+        userCache.invalidate(user);
+        userCache.findSummariesById(List.of(2L)).block();
+
+        verify(userRepository, times(2)).findSummariesByIdIn(anyCollection());
+    }
+
+    @Test
+    void findIdentityByEmail_WhenReplicaHasNoRowYet_ShouldRetryOnPrimary() {
+        UserIdentity identity = new UserIdentity(1L, "donor@vitasync.com", Role.DONOR, true, true, 0);
+        // The first read goes to the replica, the retry to the primary
+        when(userRepository.findIdentityByEmail("donor@vitasync.com"))
+                .thenReturn(Mono.empty(), Mono.just(identity));
+
+        assertThat(userCache.findIdentityByEmail("donor@vitasync.com").block()).isEqualTo(identity);
+        verify(userRepository, times(2)).findIdentityByEmail("donor@vitasync.com");
+    }
+
+    @Test
+    void findIdentitiesByEmail_WhenReplicaMissesSome_ShouldLookThemUpOnPrimary() {
+        UserIdentity replicated = new UserIdentity(1L, "a@vitasync.com", Role.DONOR, true, true, 0);
+        UserIdentity fresh = new UserIdentity(2L, "b@vitasync.com", Role.DONOR, true, true, 0);
+        when(userRepository.findIdentitiesByEmailIn(anyCollection()))
+                .thenReturn(Flux.just(replicated), Flux.just(fresh));
+
+        Map<String, UserIdentity> identities =
+                userCache.findIdentitiesByEmail(List.of("a@vitasync.com", "b@vitasync.com")).block();
+
+        assertThat(identities).containsOnlyKeys("a@vitasync.com", "b@vitasync.com");
+        verify(userRepository).findIdentitiesByEmailIn(Set.of("b@vitasync.com"));
+    }
+
+    @Test
+    void findIdentityByEmail_AfterSeed_ShouldNotQuery() {
+        userCache.seed(user(1L, "donor@vitasync.com"));
+
+        assertThat(userCache.findIdentityByEmail("donor@vitasync.com").block().id()).isEqualTo(1L);
+        verify(userRepository, never()).findIdentityByEmail("donor@vitasync.com");
+    }
+
+    @Test
+    void invalidate_WhileLoadInFlight_ShouldNeitherCacheNorShareStaleRow() {
+        Sinks.One<User> staleRead = Sinks.one();
+        when(userRepository.findById(1L))
+                .thenReturn(staleRead.asMono(), Mono.just(user(1L, "donor@vitasync.com")));
+        User written = user(1L, "donor@vitasync.com");
+
+        User[] first = new User[1];
+        userCache.findById(1L).subscribe(user -> first[0] = user);
+        userCache.invalidate(written);
+        // Arrives after the write, so must not join the load that started before it
+        userCache.findById(1L).block();
+        User stale = user(1L, "donor@vitasync.com");
+        stale.setFirstName("Stale");
+        staleRead.tryEmitValue(stale);
+
+        assertThat(first[0].getFirstName()).isEqualTo("Stale");
+        assertThat(userCache.findById(1L).block().getFirstName()).isEqualTo("Ada");
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    private static User user(Long id, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        user.setFirstName("Ada");
+        user.setRole(Role.DONOR);
+        return user;
+    }
+}